@@ -0,0 +1,407 @@
+package com.leotesla.dao.compiler;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * 根据@HttpApi接口生成HttpClientBase子类
+ * 请求地址在构造时拼接一次，参数表按参数个数预设容量，数据类型在编译期确定并绑定到回调，
+ * 请求路径上没有反射，运行时也无需扫描注解
+ *
+ * @version 1.0
+ */
+
+@SupportedAnnotationTypes(ApiClientProcessor.HTTP_API)
+public final class ApiClientProcessor extends AbstractProcessor {
+
+    static final String HTTP_API = "com.leotesla.dao.http.api.HttpApi";
+    private static final String GET = "com.leotesla.dao.http.api.GET";
+    private static final String QUERY = "com.leotesla.dao.http.api.Query";
+    private static final String CLIENT_BASE = "com.leotesla.dao.http.HttpClientBase";
+    private static final String CALLBACK_BASE = "com.leotesla.dao.http.data.CallbackBase";
+    private static final String PRIORITY = "com.leotesla.dao.http.data.Priority";
+    private static final String TYPE_REFERENCE = "com.alibaba.fastjson.TypeReference";
+    private static final String INDENT = "    ";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+
+    /**
+     * 接口方法的生成信息
+     */
+    private static final class Method {
+
+        private final ExecutableElement element;
+        // 生成的字段名
+        private final String urlField;
+        private final String typeField;
+        // 请求参数名，与除回调外的方法参数一一对应
+        private final String[] queries;
+        // 数据类型表达式，null表示回调不声明数据类型
+        private final String typeExpression;
+        private final String path;
+        // 优先级表达式，null表示沿用回调的优先级
+        private final String priority;
+
+        private Method(ExecutableElement element, String urlField, String typeField,
+                       String[] queries, String typeExpression, String path, String priority) {
+            this.element = element;
+            this.urlField = urlField;
+            this.typeField = typeField;
+            this.queries = queries;
+            this.typeExpression = typeExpression;
+            this.path = path;
+            this.priority = priority;
+        }
+
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        TypeElement httpApi = elements.getTypeElement(HTTP_API);
+        if (null == httpApi) {
+            return false;
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(httpApi)) {
+            if (ElementKind.INTERFACE != element.getKind()) {
+                error(element, "@HttpApi只能用于接口");
+                continue;
+            }
+            TypeElement api = (TypeElement) element;
+            List<Method> methods = collect(api);
+            if (null == methods) {
+                continue;
+            }
+            try {
+                write(api, methods);
+            } catch (IOException e) {
+                error(api, "生成客户端失败: " + e.getMessage());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * 校验并收集接口方法
+     * @return  null, 存在错误
+     */
+    private List<Method> collect(TypeElement api) {
+        TypeMirror callbackBase = types.erasure(elements.getTypeElement(CALLBACK_BASE).asType());
+        List<ExecutableElement> candidates = ElementFilter.methodsIn(api.getEnclosedElements());
+        Map<String, Integer> names = new HashMap<>();
+        for (ExecutableElement element : candidates) {
+            Integer count = names.get(element.getSimpleName().toString());
+            names.put(element.getSimpleName().toString(), null == count ? 1 : count + 1);
+        }
+        List<Method> methods = new ArrayList<>(candidates.size());
+        boolean valid = true;
+        int index = 0;
+        for (ExecutableElement element : candidates) {
+            index++;
+            Set<Modifier> modifiers = element.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.DEFAULT)) {
+                continue;
+            }
+            AnnotationMirror get = mirror(element, GET);
+            if (null == get) {
+                error(element, "接口方法需要@GET注解");
+                valid = false;
+                continue;
+            }
+            if (TypeKind.VOID != element.getReturnType().getKind()) {
+                error(element, "接口方法返回值须为void，结果通过回调返回");
+                valid = false;
+                continue;
+            }
+            if (!element.getTypeParameters().isEmpty()) {
+                error(element, "接口方法不能声明类型参数");
+                valid = false;
+                continue;
+            }
+            List<? extends VariableElement> parameters = element.getParameters();
+            if (parameters.isEmpty() || !types.isAssignable(types.erasure(
+                    parameters.get(parameters.size() - 1).asType()), callbackBase)) {
+                error(element, "接口方法最后一个参数须为回调");
+                valid = false;
+                continue;
+            }
+            String typeExpression;
+            try {
+                typeExpression = typeExpression(parameters.get(parameters.size() - 1).asType());
+            } catch (IllegalArgumentException e) {
+                error(parameters.get(parameters.size() - 1), e.getMessage());
+                valid = false;
+                continue;
+            }
+            String[] queries = new String[parameters.size() - 1];
+            for (int i = 0; i < queries.length; i++) {
+                AnnotationMirror query = mirror(parameters.get(i), QUERY);
+                queries[i] = null == query ? parameters.get(i).getSimpleName().toString()
+                        : (String) value(query, "value");
+            }
+            String name = element.getSimpleName().toString();
+            if (1 < names.get(name)) {
+                name += index;
+            }
+            methods.add(new Method(element, name + "Url", constant(name) + "_TYPE", queries,
+                    typeExpression, (String) value(get, "value"), priority(get)));
+        }
+
+        return valid ? methods : null;
+    }
+
+    /**
+     * 回调在CallbackBase上的数据类型，沿父类型链代入实际类型参数后取CallbackBase的T，
+     * 回调自身的泛型参数个数与顺序不影响结果
+     * @return  null, 回调为原始类型，运行时仍从回调子类解析
+     */
+    private String typeExpression(TypeMirror callback) {
+        DeclaredType base = asCallbackBase(callback);
+        if (null == base || base.getTypeArguments().isEmpty()) {
+            return null;
+        }
+        TypeMirror argument = base.getTypeArguments().get(0);
+        if (TypeKind.DECLARED != argument.getKind() && TypeKind.ARRAY != argument.getKind()) {
+            throw new IllegalArgumentException("回调数据类型须为具体类型: " + argument);
+        }
+        if (types.isSameType(argument, types.erasure(argument))) {
+            return types.erasure(argument) + ".class";
+        }
+        if (argument.toString().contains("?")) {
+            throw new IllegalArgumentException("回调数据类型不能包含通配符: " + argument);
+        }
+        // 参数化类型在类加载时解析一次
+        return "new " + TYPE_REFERENCE + "<" + argument + ">() {}.getType()";
+    }
+
+    /**
+     * 回调类型作为CallbackBase时的形式，directSupertypes会代入各层的实际类型参数
+     * @return  null, 不是CallbackBase的子类型
+     */
+    private DeclaredType asCallbackBase(TypeMirror type) {
+        if (TypeKind.DECLARED != type.getKind()) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+        if (element.getQualifiedName().contentEquals(CALLBACK_BASE)) {
+            return (DeclaredType) type;
+        }
+        for (TypeMirror supertype : types.directSupertypes(type)) {
+            DeclaredType found = asCallbackBase(supertype);
+            if (null != found) {
+                return found;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 显式指定的优先级
+     * @return  null, 未指定，沿用回调自身的优先级
+     */
+    private static String priority(AnnotationMirror get) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : get.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("priority")) {
+                return PRIORITY + "." + ((VariableElement) entry.getValue().getValue())
+                        .getSimpleName();
+            }
+        }
+
+        return null;
+    }
+
+    private void write(TypeElement api, List<Method> methods) throws IOException {
+        AnnotationMirror httpApi = mirror(api, HTTP_API);
+        String simpleName = (String) value(httpApi, "value");
+        if (simpleName.isEmpty()) {
+            simpleName = api.getSimpleName() + "Client";
+        }
+        String pkg = elements.getPackageOf(api).getQualifiedName().toString();
+        StringBuilder out = new StringBuilder();
+        if (!pkg.isEmpty()) {
+            out.append("package ").append(pkg).append(";\n\n");
+        }
+        out.append("/**\n * 由ApiClientProcessor根据").append(api.getSimpleName())
+                .append("生成，请勿修改\n */\n");
+        if (api.getModifiers().contains(Modifier.PUBLIC)) {
+            out.append("public ");
+        }
+        out.append("class ").append(simpleName).append(" extends ").append(CLIENT_BASE)
+                .append("\n        implements ").append(api.getQualifiedName()).append(" {\n\n");
+
+        boolean typed = false;
+        for (Method method : methods) {
+            if (null != method.typeExpression) {
+                out.append(INDENT).append("private static final java.lang.reflect.Type ")
+                        .append(method.typeField).append(" = ").append(method.typeExpression)
+                        .append(";\n");
+                typed = true;
+            }
+        }
+        if (typed) {
+            out.append('\n');
+        }
+        for (Method method : methods) {
+            out.append(INDENT).append("private final String ").append(method.urlField)
+                    .append(";\n");
+        }
+        out.append('\n').append(INDENT).append("public ").append(simpleName)
+                .append("(@android.support.annotation.NonNull android.content.Context context,\n")
+                .append(INDENT).append(INDENT).append(INDENT).append(INDENT)
+                .append("android.os.Handler handler) {\n")
+                .append(INDENT).append(INDENT).append("super(context, handler);\n");
+        for (Method method : methods) {
+            out.append(INDENT).append(INDENT).append("this.").append(method.urlField)
+                    .append(" = generateAPIUrl(\"").append(escape(method.path)).append("\");\n");
+        }
+        out.append(INDENT).append("}\n");
+
+        for (Method method : methods) {
+            writeMethod(out, method);
+        }
+        out.append("\n}\n");
+
+        JavaFileObject file = filer.createSourceFile(
+                pkg.isEmpty() ? simpleName : pkg + "." + simpleName, api);
+        try (Writer writer = file.openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private void writeMethod(StringBuilder out, Method method) {
+        List<? extends VariableElement> parameters = method.element.getParameters();
+        String callback = parameters.get(parameters.size() - 1).getSimpleName().toString();
+        out.append('\n').append(INDENT).append("@Override\n").append(INDENT).append("public void ")
+                .append(method.element.getSimpleName()).append('(');
+        for (int i = 0; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            out.append(0 == i ? "" : ", ").append(parameter.asType()).append(' ')
+                    .append(parameter.getSimpleName());
+        }
+        out.append(") {\n");
+        String params = "null";
+        if (0 < method.queries.length) {
+            params = "params";
+            // 按负载因子预留容量，写入过程中不扩容
+            out.append(INDENT).append(INDENT).append("java.util.Map<String, String> params = ")
+                    .append("new java.util.HashMap<>(")
+                    .append((int) (method.queries.length / 0.75f) + 1).append(");\n");
+            for (int i = 0; i < method.queries.length; i++) {
+                VariableElement parameter = parameters.get(i);
+                String name = parameter.getSimpleName().toString();
+                String value = "java.lang.String".equals(parameter.asType().toString())
+                        ? name : "String.valueOf(" + name + ")";
+                out.append(INDENT).append(INDENT);
+                if (!parameter.asType().getKind().isPrimitive()) {
+                    out.append("if (null != ").append(name).append(") ");
+                }
+                out.append("params.put(\"").append(escape(method.queries[i])).append("\", ")
+                        .append(value).append(");\n");
+            }
+        }
+        if (null != method.typeExpression) {
+            out.append(INDENT).append(INDENT).append(callback).append(".bindDataType(")
+                    .append(method.typeField).append(");\n");
+        }
+        out.append(INDENT).append(INDENT).append("get(")
+                .append(null == method.priority ? callback + ".getPriority()" : method.priority)
+                .append(", null, ").append(method.urlField)
+                .append(", ").append(params).append(", ").append(callback).append(");\n")
+                .append(INDENT).append("}\n");
+    }
+
+    private AnnotationMirror mirror(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                    .contentEquals(annotation)) {
+                return mirror;
+            }
+        }
+
+        return null;
+    }
+
+    private Object value(AnnotationMirror mirror, String key) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(key)) {
+                return entry.getValue().getValue();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 驼峰转常量名，如getLogin转为GET_LOGIN
+     */
+    private static String constant(String name) {
+        StringBuilder builder = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && 0 < i) {
+                builder.append('_');
+            }
+            builder.append(Character.toUpperCase(c));
+        }
+
+        return builder.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+}
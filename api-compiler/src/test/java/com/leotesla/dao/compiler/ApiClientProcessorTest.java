@@ -0,0 +1,242 @@
+package com.leotesla.dao.compiler;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaFileObject;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+/**
+ * 接口客户端生成：生成内容、数据类型解析、重载与诊断
+ * dao模块为Android库，测试以最小桩代替其中被生成代码引用的类
+ *
+ * @version 1.0
+ */
+public class ApiClientProcessorTest {
+
+    private static final JavaFileObject[] FRAMEWORK = {
+            JavaFileObjects.forSourceLines("android.content.Context",
+                    "package android.content;",
+                    "public class Context {}"),
+            JavaFileObjects.forSourceLines("android.os.Handler",
+                    "package android.os;",
+                    "public class Handler {}"),
+            JavaFileObjects.forSourceLines("android.support.annotation.NonNull",
+                    "package android.support.annotation;",
+                    "public @interface NonNull {}"),
+            JavaFileObjects.forSourceLines("com.alibaba.fastjson.TypeReference",
+                    "package com.alibaba.fastjson;",
+                    "public class TypeReference<T> {",
+                    "    public java.lang.reflect.Type getType() { return null; }",
+                    "}"),
+            JavaFileObjects.forSourceLines("com.leotesla.dao.http.api.HttpApi",
+                    "package com.leotesla.dao.http.api;",
+                    "public @interface HttpApi { String value() default \"\"; }"),
+            JavaFileObjects.forSourceLines("com.leotesla.dao.http.api.GET",
+                    "package com.leotesla.dao.http.api;",
+                    "import com.leotesla.dao.http.data.Priority;",
+                    "public @interface GET {",
+                    "    String value();",
+                    "    Priority priority() default Priority.NORMAL;",
+                    "}"),
+            JavaFileObjects.forSourceLines("com.leotesla.dao.http.api.Query",
+                    "package com.leotesla.dao.http.api;",
+                    "public @interface Query { String value(); }"),
+            JavaFileObjects.forSourceLines("com.leotesla.dao.http.data.Priority",
+                    "package com.leotesla.dao.http.data;",
+                    "public enum Priority { INTERACTIVE, NORMAL, BACKGROUND, PREFETCH }"),
+            JavaFileObjects.forSourceLines("com.leotesla.dao.http.data.CallbackBase",
+                    "package com.leotesla.dao.http.data;",
+                    "public abstract class CallbackBase<T extends java.io.Serializable> {",
+                    "    public final void bindDataType(java.lang.reflect.Type type) {}",
+                    "    public final Priority getPriority() { return Priority.NORMAL; }",
+                    "}"),
+            JavaFileObjects.forSourceLines("com.leotesla.dao.http.HttpClientBase",
+                    "package com.leotesla.dao.http;",
+                    "import com.leotesla.dao.http.data.CallbackBase;",
+                    "import com.leotesla.dao.http.data.Priority;",
+                    "public abstract class HttpClientBase {",
+                    "    protected HttpClientBase(android.content.Context context,",
+                    "                             android.os.Handler handler) {}",
+                    "    protected final String generateAPIUrl(String path) { return path; }",
+                    "    protected final void get(Priority priority, Object config, String url,",
+                    "            java.util.Map<String, String> params,",
+                    "            CallbackBase<?> callback) {}",
+                    "    public abstract static class PojoCallback<T extends java.io.Serializable>",
+                    "            extends CallbackBase<T> {}",
+                    "}"),
+    };
+
+    private static Compilation compile(JavaFileObject... sources) {
+        List<JavaFileObject> files = new ArrayList<>(Arrays.asList(FRAMEWORK));
+        files.addAll(Arrays.asList(sources));
+        return javac().withProcessors(new ApiClientProcessor()).compile(files);
+    }
+
+    @Test
+    public void generatesClient() {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("test.LoginApi",
+                "package test;",
+                "import com.leotesla.dao.http.HttpClientBase;",
+                "import com.leotesla.dao.http.api.*;",
+                "import com.leotesla.dao.http.data.Priority;",
+                "@HttpApi",
+                "public interface LoginApi {",
+                "    @GET(value = \"login\", priority = Priority.INTERACTIVE)",
+                "    void getLogin(@Query(\"username\") String name, int age,",
+                "                  HttpClientBase.PojoCallback<String> callback);",
+                "}"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.LoginApiClient").contentsAsUtf8String()
+                .contains("public class LoginApiClient extends com.leotesla.dao.http.HttpClientBase");
+        assertThat(compilation).generatedSourceFile("test.LoginApiClient").contentsAsUtf8String()
+                .contains("GET_LOGIN_TYPE = java.lang.String.class;");
+        assertThat(compilation).generatedSourceFile("test.LoginApiClient").contentsAsUtf8String()
+                .contains("this.getLoginUrl = generateAPIUrl(\"login\");");
+        assertThat(compilation).generatedSourceFile("test.LoginApiClient").contentsAsUtf8String()
+                .contains("if (null != name) params.put(\"username\", name);");
+        // 基本类型不判空，参数名即请求参数名
+        assertThat(compilation).generatedSourceFile("test.LoginApiClient").contentsAsUtf8String()
+                .contains("params.put(\"age\", String.valueOf(age));");
+        assertThat(compilation).generatedSourceFile("test.LoginApiClient").contentsAsUtf8String()
+                .contains("get(com.leotesla.dao.http.data.Priority.INTERACTIVE, null, "
+                        + "getLoginUrl, params, callback);");
+    }
+
+    @Test
+    public void keepsCallbackPriorityByDefault() {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("test.FeedApi",
+                "package test;",
+                "import com.leotesla.dao.http.HttpClientBase;",
+                "import com.leotesla.dao.http.api.*;",
+                "@HttpApi(\"FeedClient\")",
+                "interface FeedApi {",
+                "    @GET(\"feed\")",
+                "    void getFeed(HttpClientBase.PojoCallback<String> callback);",
+                "}"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.FeedClient").contentsAsUtf8String()
+                .contains("get(callback.getPriority(), null, getFeedUrl, null, callback);");
+    }
+
+    @Test
+    public void resolvesDataTypeThroughCallbackBase() {
+        // 数据类型是回调的第二个类型参数，同时经过参数化的中间类
+        Compilation compilation = compile(
+                JavaFileObjects.forSourceLines("test.PairCallback",
+                        "package test;",
+                        "import com.leotesla.dao.http.data.CallbackBase;",
+                        "public abstract class PairCallback<K, V extends java.io.Serializable>",
+                        "        extends CallbackBase<V> {}"),
+                JavaFileObjects.forSourceLines("test.ListCallback",
+                        "package test;",
+                        "public abstract class ListCallback<E>",
+                        "        extends PairCallback<E, java.util.ArrayList<E>> {}"),
+                JavaFileObjects.forSourceLines("test.PairApi",
+                        "package test;",
+                        "import com.leotesla.dao.http.api.*;",
+                        "@HttpApi",
+                        "public interface PairApi {",
+                        "    @GET(\"pair\")",
+                        "    void getPair(PairCallback<Integer, String> callback);",
+                        "    @GET(\"list\")",
+                        "    void getList(ListCallback<String> callback);",
+                        "}"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.PairApiClient").contentsAsUtf8String()
+                .contains("GET_PAIR_TYPE = java.lang.String.class;");
+        assertThat(compilation).generatedSourceFile("test.PairApiClient").contentsAsUtf8String()
+                .contains("GET_LIST_TYPE = new com.alibaba.fastjson.TypeReference"
+                        + "<java.util.ArrayList<java.lang.String>>() {}.getType();");
+    }
+
+    @Test
+    public void rawCallbackBindsNothing() {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("test.RawApi",
+                "package test;",
+                "import com.leotesla.dao.http.HttpClientBase;",
+                "import com.leotesla.dao.http.api.*;",
+                "@HttpApi",
+                "public interface RawApi {",
+                "    @GET(\"raw\")",
+                "    @SuppressWarnings(\"rawtypes\")",
+                "    void getRaw(HttpClientBase.PojoCallback callback);",
+                "}"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.RawApiClient").contentsAsUtf8String()
+                .doesNotContain("bindDataType");
+    }
+
+    @Test
+    public void overloadsGetDistinctFields() {
+        Compilation compilation = compile(JavaFileObjects.forSourceLines("test.UserApi",
+                "package test;",
+                "import com.leotesla.dao.http.HttpClientBase;",
+                "import com.leotesla.dao.http.api.*;",
+                "@HttpApi",
+                "public interface UserApi {",
+                "    @GET(\"user\")",
+                "    void getUser(HttpClientBase.PojoCallback<String> callback);",
+                "    @GET(\"user/by_id\")",
+                "    void getUser(@Query(\"id\") long id,",
+                "                 HttpClientBase.PojoCallback<Integer> callback);",
+                "}"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("test.UserApiClient").contentsAsUtf8String()
+                .contains("this.getUser1Url = generateAPIUrl(\"user\");");
+        assertThat(compilation).generatedSourceFile("test.UserApiClient").contentsAsUtf8String()
+                .contains("this.getUser2Url = generateAPIUrl(\"user/by_id\");");
+        assertThat(compilation).generatedSourceFile("test.UserApiClient").contentsAsUtf8String()
+                .contains("GET_USER2_TYPE = java.lang.Integer.class;");
+    }
+
+    @Test
+    public void rejectsClass() {
+        JavaFileObject source = JavaFileObjects.forSourceLines("test.NotApi",
+                "package test;",
+                "import com.leotesla.dao.http.api.*;",
+                "@HttpApi",
+                "public abstract class NotApi {}");
+        Compilation compilation = compile(source);
+        assertThat(compilation).hadErrorContaining("@HttpApi只能用于接口")
+                .inFile(source).onLine(4);
+    }
+
+    @Test
+    public void rejectsInvalidMethods() {
+        JavaFileObject source = JavaFileObjects.forSourceLines("test.BadApi",
+                "package test;",
+                "import com.leotesla.dao.http.HttpClientBase;",
+                "import com.leotesla.dao.http.api.*;",
+                "@HttpApi",
+                "public interface BadApi {",
+                "    void missingGet(HttpClientBase.PojoCallback<String> callback);",
+                "    @GET(\"a\")",
+                "    String returnsValue(HttpClientBase.PojoCallback<String> callback);",
+                "    @GET(\"b\")",
+                "    void noCallback(String name);",
+                "    @GET(\"c\")",
+                "    void wildcard(HttpClientBase.PojoCallback<",
+                "            java.util.ArrayList<? extends String>> callback);",
+                "}");
+        Compilation compilation = compile(source);
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("接口方法需要@GET注解")
+                .inFile(source).onLine(6);
+        assertThat(compilation).hadErrorContaining("接口方法返回值须为void")
+                .inFile(source).onLine(8);
+        assertThat(compilation).hadErrorContaining("接口方法最后一个参数须为回调")
+                .inFile(source).onLine(10);
+        assertThat(compilation).hadErrorContaining("回调数据类型不能包含通配符")
+                .inFile(source).onLine(13);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.leotesla.dao.http;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 错误表查询
+ *
+ * @version 1.0
+ */
+
+@State(Scope.Thread)
+public class HttpErrorBookBenchmark {
+
+    private static final int FIRST_CODE = 10000;
+
+    // 错误码数量
+    @Param({"16", "256", "4096"})
+    public int count;
+
+    private int[] codes;
+    private int cursor;
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < count; i++) {
+            if (0 != i) {
+                json.append(',');
+            }
+            json.append('"').append(FIRST_CODE + i * 3).append("\":\"错误").append(i).append('"');
+        }
+        HttpErrorBook.update(json.append('}').toString());
+        // 更新在后台线程完成
+        int last = FIRST_CODE + (count - 1) * 3;
+        while (null == HttpErrorBook.getErrorMsg(last, null)) {
+            Thread.sleep(1);
+        }
+        codes = new int[1024];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = FIRST_CODE + (i * 7 % count) * 3;
+        }
+    }
+
+    @Benchmark
+    public String hit() {
+        return HttpErrorBook.getErrorMsg(codes[cursor++ & 1023], "自定义错误");
+    }
+
+    @Benchmark
+    public String miss() {
+        return HttpErrorBook.getErrorMsg(codes[cursor++ & 1023] + 1, "自定义错误");
+    }
+
+}
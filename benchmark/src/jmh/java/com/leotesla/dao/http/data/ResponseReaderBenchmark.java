@@ -0,0 +1,96 @@
+package com.leotesla.dao.http.data;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * 响应信封与Sid分页结果集解析，对比流式读取与整树解析
+ * 流式读取经由回调使用的Envelope，数据区按同一模型绑定；真实回调的解析见androidTest中的CallbackBenchmark
+ *
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+public class ResponseReaderBenchmark {
+
+    // 响应体大小，字符数
+    @Param({"1024", "65536", "1048576", "5242880"})
+    public int size;
+
+    private String payload;
+
+    public static class Item {
+        public String id;
+        public String name;
+        public String cover;
+        public int likes;
+        public long createdAt;
+        public boolean followed;
+    }
+
+    public static class Page {
+        public String sid;
+        public int total;
+        public List<Item> results;
+    }
+
+    @Setup
+    public void setUp() {
+        StringBuilder results = new StringBuilder(size + 256);
+        for (int i = 0; results.length() < size; i++) {
+            if (0 != i) {
+                results.append(',');
+            }
+            results.append("{\"id\":\"").append(100000 + i)
+                    .append("\",\"name\":\"用户").append(i)
+                    .append("\",\"cover\":\"https://img.example.com/c/").append(i)
+                    .append(".jpg\",\"likes\":").append(i * 7)
+                    .append(",\"createdAt\":").append(1500000000000L + i)
+                    .append(",\"followed\":").append(0 == i % 3).append('}');
+        }
+        payload = "{\"error\":0,\"data\":{\"sid\":\"next\",\"total\":1000,\"results\":["
+                + results + "]}}";
+    }
+
+    @Benchmark
+    public void streamString(Blackhole blackhole) {
+        read(new ResponseReader(new StringReader(payload)), blackhole);
+    }
+
+    @Benchmark
+    public void tree(Blackhole blackhole) {
+        JSONObject envelope = JSON.parseObject(payload);
+        blackhole.consume(envelope.getIntValue("error"));
+        blackhole.consume(envelope.getJSONObject("data").toJavaObject(Page.class));
+    }
+
+    /**
+     * 信封读取与回调共用{@link Envelope}，数据区整体绑定为{@link Page}
+     */
+    private void read(ResponseReader reader, Blackhole blackhole) {
+        blackhole.consume(Envelope.read(reader, payload, new Envelope.DataParser() {
+            @Override
+            public boolean parse(ResponseReader reader) {
+                blackhole.consume(reader.readObject(Page.class));
+                return true;
+            }
+
+            @Override
+            public boolean parse(String data) {
+                blackhole.consume(JSON.parseObject(data, Page.class));
+                return true;
+            }
+        }));
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.leotesla.dao.benchmark;
+
+import android.os.Build;
+import android.os.Debug;
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 设备上的微基准：预热后计时，输出单次耗时与分配量到logcat
+ *
+ * @version 1.0
+ */
+
+final class Bench {
+
+    // 计时轮数，取中位数
+    private static final int ROUNDS = 5;
+
+    private Bench() {
+    }
+
+    /**
+     * 预热一轮后计时ROUNDS轮，每轮执行ops次
+     * @return  实际执行次数，含预热
+     */
+    static long measure(@NonNull String tag, @NonNull String name, int ops,
+                        @NonNull Runnable op) {
+        for (int i = 0; i < ops; i++) {
+            op.run();
+        }
+        long[] rounds = new long[ROUNDS];
+        long allocated = allocatedBytes();
+        for (int r = 0; r < ROUNDS; r++) {
+            long begin = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                op.run();
+            }
+            rounds[r] = System.nanoTime() - begin;
+        }
+        long allocatedAfter = allocatedBytes();
+        Arrays.sort(rounds);
+        long total = (long) ops * ROUNDS;
+        Log.i(tag, String.format(Locale.US, "%s: %.1f ns/op (median of %d x %d), alloc %s/op",
+                name, (double) rounds[ROUNDS / 2] / ops, ROUNDS, ops,
+                allocated < 0 ? "n/a" : String.format(Locale.US, "%.1f",
+                        (double) (allocatedAfter - allocated) / total)));
+        return total + ops;
+    }
+
+    /**
+     * 进程累计分配字节数
+     * @return  -1, 系统不支持
+     */
+    private static long allocatedBytes() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return -1;
+        }
+        String value = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        return null == value ? -1 : Long.parseLong(value);
+    }
+
+}
@@ -0,0 +1,238 @@
+package com.leotesla.dao.benchmark;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.leotesla.dao.http.HttpClientBase;
+import com.leotesla.dao.http.HttpClientHandler;
+import com.leotesla.dao.http.data.CallbackBase;
+import com.leotesla.dao.http.data.Extra;
+import com.leotesla.dao.loadtest.LoadTestServer;
+import com.leotesla.httpclient.ClientError;
+import com.leotesla.httpclient.internal.HttpRequest;
+import com.leotesla.httpclient.internal.HttpResponse;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * CallbackBase.onHttpSuccess解析与投递，驱动真实的回调类
+ * 响应取自本地服务经引擎返回的HttpResponse，重放给新建的回调；回调就地投递，不经Handler
+ * 结果输出到logcat，tag为CallbackBenchmark
+ *
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class CallbackBenchmark {
+
+    private static final String TAG = "CallbackBenchmark";
+    // 每轮解析次数
+    private static final int OPS = 200;
+    // Sid分页结果集条数
+    private static final int[] PAGE_ITEMS = {20, 500};
+
+    private static HandlerThread callbackThread;
+
+    // 投递与出错次数
+    private static long delivered;
+    private static long errors;
+
+    public static class User implements Serializable {
+        public String id;
+        public String name;
+        public String avatar;
+        public int level;
+    }
+
+    public static class Item implements Serializable {
+        public String id;
+        public String name;
+        public String cover;
+        public int likes;
+    }
+
+    private static final class UserCallback extends HttpClientBase.PojoCallback<User> {
+
+        @Override
+        protected void post(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void onSuccess(User data) {
+            delivered++;
+        }
+
+        @Override
+        public boolean onError(ClientError error) {
+            errors++;
+            return true;
+        }
+
+    }
+
+    private static final class FeedCallback extends HttpClientBase.SidArrayCallback<Item> {
+
+        @Override
+        protected void post(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void onSuccess(@NonNull String sid, @NonNull List<Item> data,
+                              @NonNull Extra extra) {
+            delivered++;
+        }
+
+        @Override
+        public boolean onError(ClientError error) {
+            errors++;
+            return true;
+        }
+
+    }
+
+    /**
+     * 记录引擎为请求分配的响应，请求完成后即为完整的响应
+     */
+    private static final class CaptureClient extends HttpClientBase {
+
+        private final String baseUrl;
+        private volatile HttpResponse response;
+
+        private CaptureClient(@NonNull Context context, Handler handler,
+                              @NonNull String baseUrl) {
+            super(context, handler);
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        protected boolean onPreExecute(@NonNull HttpRequest request) {
+            this.response = request.getResponse();
+            return false;
+        }
+
+        @NonNull
+        private HttpResponse fetchPojo() throws InterruptedException {
+            CountDownLatch done = new CountDownLatch(1);
+            get(baseUrl + "/pojo", null, new PojoCallback<User>() {
+                @Override
+                public void onSuccess(User data) {
+                    done.countDown();
+                }
+            });
+            return await(done);
+        }
+
+        @NonNull
+        private HttpResponse fetchFeed() throws InterruptedException {
+            CountDownLatch done = new CountDownLatch(1);
+            get(baseUrl + "/feed", null, new SidArrayCallback<Item>() {
+                @Override
+                public void onSuccess(@NonNull String sid, @NonNull List<Item> data,
+                                      @NonNull Extra extra) {
+                    done.countDown();
+                }
+            });
+            return await(done);
+        }
+
+        @NonNull
+        private HttpResponse await(@NonNull CountDownLatch done) throws InterruptedException {
+            assertTrue("request timed out", done.await(30, TimeUnit.SECONDS));
+            HttpResponse captured = this.response;
+            assertNotNull(captured);
+            assertNotNull(captured.getContent());
+            return captured;
+        }
+
+    }
+
+    private interface Factory {
+
+        @NonNull
+        CallbackBase<?> create();
+
+    }
+
+    @BeforeClass
+    public static void setUp() {
+        Context context = InstrumentationRegistry.getTargetContext();
+        HttpClientBase.init((Application) context.getApplicationContext(), new HttpClientHandler() {
+            @Override
+            public void onPreRequest(@NonNull HttpRequest request) {
+            }
+
+            @Override
+            public void onHandleError(@NonNull ClientError clientError) {
+            }
+        });
+        callbackThread = new HandlerThread("callback-benchmark");
+        callbackThread.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        callbackThread.quit();
+    }
+
+    @Test
+    public void pojo() throws Exception {
+        LoadTestServer server = new LoadTestServer(PAGE_ITEMS[0]);
+        server.start();
+        try {
+            run("pojo", capture(server).fetchPojo(), UserCallback::new);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void feed() throws Exception {
+        for (int items : PAGE_ITEMS) {
+            LoadTestServer server = new LoadTestServer(items);
+            server.start();
+            try {
+                run("feed x" + items, capture(server).fetchFeed(), FeedCallback::new);
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    @NonNull
+    private static CaptureClient capture(@NonNull LoadTestServer server) {
+        return new CaptureClient(InstrumentationRegistry.getTargetContext(),
+                new Handler(callbackThread.getLooper()), server.getBaseUrl());
+    }
+
+    /**
+     * 每次新建回调并交给同一响应，解析在当前线程完成
+     */
+    private static void run(@NonNull String name, @NonNull HttpResponse response,
+                            @NonNull Factory factory) {
+        delivered = 0;
+        errors = 0;
+        long ops = Bench.measure(TAG, name, OPS,
+                () -> factory.create().onHttpSuccess(response));
+        assertEquals(name + " errors", 0, errors);
+        assertEquals(name, ops, delivered);
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.leotesla.dao.benchmark;
+
+import android.os.HandlerThread;
+import android.os.Message;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.leotesla.app.SuperHandler;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * SuperHandler多处理器分发，直接调用dispatchMessage，只计分发表查找与处理器调用，不含消息队列
+ * 结果输出到logcat，tag为DispatchBenchmark
+ *
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class DispatchBenchmark {
+
+    private static final String TAG = "DispatchBenchmark";
+    // 每轮分发次数
+    private static final int OPS = 100000;
+    // 处理器数量
+    private static final int[] COUNTS = {1, 16, 128};
+    private static final int WHAT = 1;
+
+    private static HandlerThread looperThread;
+
+    // SuperHandler只弱引用宿主，由用例持有
+    private final Object owner = new Object();
+    private long handled;
+    private final SuperHandler.ExtraHandler counter = msg -> handled++;
+
+    @BeforeClass
+    public static void setUp() {
+        looperThread = new HandlerThread("dispatch-benchmark");
+        looperThread.start();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        looperThread.quit();
+    }
+
+    /**
+     * 同一what注册count个处理器
+     */
+    @Test
+    public void sameWhat() {
+        for (int count : COUNTS) {
+            SuperHandler<Object> handler = new SuperHandler<>(looperThread.getLooper(), owner);
+            for (int i = 0; i < count; i++) {
+                handler.registerHandler(WHAT, counter);
+            }
+            run("same_what x" + count, handler, count);
+        }
+    }
+
+    /**
+     * count个what各注册一个处理器，分发其中之一
+     */
+    @Test
+    public void manyWhats() {
+        for (int count : COUNTS) {
+            SuperHandler<Object> handler = new SuperHandler<>(looperThread.getLooper(), owner);
+            for (int i = 0; i < count; i++) {
+                handler.registerHandler(WHAT + i, counter);
+            }
+            run("many_whats x" + count, handler, 1);
+        }
+    }
+
+    /**
+     * 指定what与接收所有what的处理器交替注册，分发时按注册顺序归并
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void interleaved() {
+        for (int count : COUNTS) {
+            SuperHandler<Object> handler = new SuperHandler<>(looperThread.getLooper(), owner);
+            for (int i = 0; i < count; i++) {
+                if (0 == i % 2) {
+                    handler.registerHandler(WHAT, counter);
+                } else {
+                    handler.addHandler(counter);
+                }
+            }
+            run("interleaved x" + count, handler, count);
+        }
+    }
+
+    /**
+     * @param calls 每次分发应调用的处理器数
+     */
+    private void run(String name, SuperHandler<Object> handler, int calls) {
+        Message msg = Message.obtain(handler, WHAT);
+        handled = 0;
+        long ops = Bench.measure(TAG, name, OPS, () -> handler.dispatchMessage(msg));
+        assertEquals(name, ops * calls, handled);
+    }
+
+}
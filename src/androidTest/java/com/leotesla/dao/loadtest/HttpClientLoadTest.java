@@ -0,0 +1,309 @@
+package com.leotesla.dao.loadtest;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.support.annotation.NonNull;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.leotesla.dao.http.HttpClientBase;
+import com.leotesla.dao.http.HttpClientHandler;
+import com.leotesla.dao.http.data.Extra;
+import com.leotesla.dao.http.data.RequestMetrics;
+import com.leotesla.httpclient.ClientError;
+import com.leotesla.httpclient.internal.HttpRequest;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * HttpClientBase端到端压测，请求经由调度、引擎、回调解析和Handler投递的完整链路
+ * 结果输出到logcat，tag为HttpClientLoadTest
+ *
+ * @version 1.0
+ */
+@RunWith(AndroidJUnit4.class)
+public class HttpClientLoadTest {
+
+    private static final String TAG = "HttpClientLoadTest";
+    // 同时进行的请求数与每个场景的请求总数
+    private static final int CONCURRENCY = 16;
+    private static final int REQUESTS = 400;
+    // ETag场景的资源数，多于ETag索引保留的32个解析结果，被淘汰的资源须回退为完整请求
+    private static final int ETAG_RESOURCES = 48;
+
+    private static LoadTestServer server;
+    private static HandlerThread callbackThread;
+    private static LoadClient client;
+
+    public static class User implements Serializable {
+        public String id;
+        public String name;
+        public String avatar;
+        public int level;
+    }
+
+    public static class Item implements Serializable {
+        public String id;
+        public String name;
+        public String cover;
+        public int likes;
+    }
+
+    /**
+     * 压测客户端，地址指向本地服务
+     */
+    private static final class LoadClient extends HttpClientBase {
+
+        private final String baseUrl;
+
+        private LoadClient(@NonNull Context context, Handler handler, @NonNull String baseUrl) {
+            super(context, handler);
+            this.baseUrl = baseUrl;
+        }
+
+        private void getPojo(int index, @NonNull PojoCallback<User> callback) {
+            get(baseUrl + "/pojo", params(index), callback);
+        }
+
+        private void getFeed(int index, @NonNull SidArrayCallback<Item> callback) {
+            get(baseUrl + "/feed", params(index), callback);
+        }
+
+        private void getErrorCodes(int index, @NonNull PojoCallback<String> callback) {
+            get(baseUrl + "/config/error_code", params(index), callback);
+        }
+
+        /**
+         * 参数轮换于固定的一组资源，各资源首个响应后服务端返回304
+         */
+        private void getEtag(int index, @NonNull SidArrayCallback<Item> callback) {
+            get(baseUrl + "/etag", params(index % ETAG_RESOURCES), callback);
+        }
+
+        /**
+         * 每个请求参数不同，避免被合并
+         */
+        private static Map<String, String> params(int index) {
+            Map<String, String> params = new HashMap<>(1);
+            params.put("n", String.valueOf(index));
+            return params;
+        }
+
+    }
+
+    /**
+     * 发起第index个请求，结束时调用recorder
+     */
+    private interface Call {
+
+        void issue(int index, @NonNull Recorder recorder);
+
+    }
+
+    private static final class Recorder {
+
+        private final long[] latencies;
+        private final Semaphore permits = new Semaphore(CONCURRENCY);
+        private final CountDownLatch latch;
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private Recorder(int total) {
+            this.latencies = new long[total];
+            this.latch = new CountDownLatch(total);
+        }
+
+        private void done(int index, long start, boolean success) {
+            latencies[index] = System.nanoTime() - start;
+            if (!success) {
+                errors.incrementAndGet();
+            }
+            permits.release();
+            latch.countDown();
+        }
+
+    }
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Context context = InstrumentationRegistry.getTargetContext();
+        HttpClientBase.init((Application) context.getApplicationContext(), new HttpClientHandler() {
+            @Override
+            public void onPreRequest(@NonNull HttpRequest request) {
+            }
+
+            @Override
+            public void onHandleError(@NonNull ClientError clientError) {
+                Log.w(TAG, "error: " + clientError.getPrettyMsg());
+            }
+        });
+        server = new LoadTestServer(50);
+        server.start();
+        callbackThread = new HandlerThread("load-test-callback");
+        callbackThread.start();
+        client = new LoadClient(context, new Handler(callbackThread.getLooper()),
+                server.getBaseUrl());
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        server.stop();
+        callbackThread.quit();
+    }
+
+    @Test
+    public void pojo() throws Exception {
+        run("pojo", "/pojo", REQUESTS, (index, recorder) -> {
+            long start = System.nanoTime();
+            client.getPojo(index, new HttpClientBase.PojoCallback<User>() {
+                @Override
+                public void onSuccess(User data) {
+                    recorder.done(index, start, null != data);
+                }
+
+                @Override
+                public boolean onError(ClientError error) {
+                    recorder.done(index, start, false);
+                    return true;
+                }
+            });
+        });
+    }
+
+    @Test
+    public void feed() throws Exception {
+        run("feed", "/feed", REQUESTS, (index, recorder) -> {
+            long start = System.nanoTime();
+            client.getFeed(index, new HttpClientBase.SidArrayCallback<Item>() {
+                @Override
+                public void onSuccess(@NonNull String sid, @NonNull List<Item> data,
+                                      @NonNull Extra extra) {
+                    recorder.done(index, start, !data.isEmpty());
+                }
+
+                @Override
+                public boolean onError(ClientError error) {
+                    recorder.done(index, start, false);
+                    return true;
+                }
+            });
+        });
+    }
+
+    @Test
+    public void errorCodes() throws Exception {
+        run("error_code", "/config/error_code", REQUESTS, (index, recorder) -> {
+            long start = System.nanoTime();
+            client.getErrorCodes(index, new HttpClientBase.PojoCallback<String>() {
+                @Override
+                public void onSuccess(String data) {
+                    recorder.done(index, start, null != data);
+                }
+
+                @Override
+                public boolean onError(ClientError error) {
+                    recorder.done(index, start, false);
+                    return true;
+                }
+            });
+        });
+    }
+
+    @Test
+    public void etag() throws Exception {
+        // 先为每个资源取得ETag与解析结果，再压测304复用
+        run("etag_warmup", "/etag", ETAG_RESOURCES, HttpClientLoadTest::issueEtag);
+        long notModified = server.getNotModifiedCount();
+        run("etag", "/etag", REQUESTS, HttpClientLoadTest::issueEtag);
+        // 解析结果已被淘汰且无磁盘缓存的资源不带ETag请求，run中断言全部请求成功
+        Log.i(TAG, "etag 304 responses: " + (server.getNotModifiedCount() - notModified));
+    }
+
+    private static void issueEtag(int index, @NonNull Recorder recorder) {
+        long start = System.nanoTime();
+        client.getEtag(index, new HttpClientBase.SidArrayCallback<Item>() {
+            @Override
+            public void onSuccess(@NonNull String sid, @NonNull List<Item> data,
+                                  @NonNull Extra extra) {
+                recorder.done(index, start, !data.isEmpty());
+            }
+
+            @Override
+            public boolean onError(ClientError error) {
+                recorder.done(index, start, false);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * 以固定并发执行场景并输出吞吐、延迟分位、解析耗时和单请求分配量
+     */
+    private static void run(@NonNull String name, @NonNull String path, int total,
+                            @NonNull Call call) throws InterruptedException {
+        RequestMetrics metrics = HttpClientBase.getMetrics();
+        metrics.reset();
+        Recorder recorder = new Recorder(total);
+        long served = server.getServedCount(), connections = server.getConnectionCount();
+        long allocated = allocatedBytes();
+        long begin = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            recorder.permits.acquire();
+            call.issue(i, recorder);
+        }
+        assertTrue(name + " timed out", recorder.latch.await(2, TimeUnit.MINUTES));
+        long elapsed = System.nanoTime() - begin;
+        long allocatedAfter = allocatedBytes();
+
+        long[] sorted = recorder.latencies.clone();
+        Arrays.sort(sorted);
+        RequestMetrics.Endpoint endpoint = metrics.get(server.getBaseUrl() + path);
+        Log.i(TAG, String.format(Locale.US,
+                "%s: %d requests, concurrency %d, %.1f req/s, p50 %.2fms, p99 %.2fms, "
+                        + "parse p50 <%dms p99 <%dms, alloc %s/req (whole process)",
+                name, total, CONCURRENCY, total * 1e9 / elapsed,
+                sorted[total / 2] / 1e6, sorted[Math.min(total - 1, total * 99 / 100)] / 1e6,
+                null == endpoint ? -1 : endpoint.percentile(RequestMetrics.PARSE, 0.5),
+                null == endpoint ? -1 : endpoint.percentile(RequestMetrics.PARSE, 0.99),
+                allocated < 0 ? "n/a" : String.valueOf((allocatedAfter - allocated) / total)));
+        Log.i(TAG, String.format(Locale.US, "%s: %d responses over %d new connections", name,
+                server.getServedCount() - served, server.getConnectionCount() - connections));
+        Log.i(TAG, metrics.dump());
+        Log.i(TAG, HttpClientBase.getParseExecutor().dump());
+        assertEquals(name + " failed requests", 0, recorder.errors.get());
+    }
+
+    /**
+     * 进程累计分配字节数，包含本地服务端的分配
+     * @return  -1, 系统不支持
+     */
+    private static long allocatedBytes() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return -1;
+        }
+        String value = Debug.getRuntimeStat("art.gc.bytes-allocated");
+        return null == value ? -1 : Long.parseLong(value);
+    }
+
+}
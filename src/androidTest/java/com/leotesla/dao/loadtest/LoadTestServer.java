@@ -0,0 +1,194 @@
+package com.leotesla.dao.loadtest;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内HTTP服务，按路径返回录制的响应信封
+ * /pojo 单对象，/feed Sid分页，/config/error_code 错误表，/etag 带ETag并按请求头返回304
+ * 连接保持打开，客户端可复用；每个连接一个服务线程
+ *
+ * @version 1.0
+ */
+
+public final class LoadTestServer {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    // 服务端etag与客户端回传的请求头
+    static final String ETAG = "W/\"load-test-v1\"";
+    private static final String REQ_ETAG = "x-doupai-etag-match";
+    // 空闲连接保持时长，毫秒
+    private static final int IDLE_TIMEOUT = 30 * 1000;
+
+    private final ServerSocket socket;
+    private final ExecutorService workers;
+    private final Map<String, byte[]> bodies = new HashMap<>();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * @param pageItems     分页每页条数，决定响应体大小
+     */
+    public LoadTestServer(int pageItems) throws IOException {
+        this.socket = new ServerSocket(0, 256, InetAddress.getByName("127.0.0.1"));
+        // 保持的连接各占一个线程，固定线程数会让空闲连接饿死新连接
+        this.workers = Executors.newCachedThreadPool();
+        bodies.put("/pojo", envelope("{\"id\":\"10001\",\"name\":\"load\",\"avatar\":"
+                + "\"https://img.example.com/a/10001.jpg\",\"level\":12}"));
+        bodies.put("/feed", envelope(page(pageItems)));
+        bodies.put("/etag", envelope(page(pageItems)));
+        StringBuilder codes = new StringBuilder("{");
+        for (int i = 0; i < 200; i++) {
+            codes.append(0 == i ? "" : ",").append('"').append(10000 + i).append("\":\"错误")
+                    .append(i).append('"');
+        }
+        bodies.put("/config/error_code", envelope(codes.append('}').toString()));
+    }
+
+    private static byte[] envelope(@NonNull String data) {
+        return ("{\"error\":0,\"data\":" + data + "}").getBytes(UTF_8);
+    }
+
+    private static String page(int items) {
+        StringBuilder results = new StringBuilder();
+        for (int i = 0; i < items; i++) {
+            results.append(0 == i ? "" : ",").append("{\"id\":\"").append(100000 + i)
+                    .append("\",\"name\":\"用户").append(i)
+                    .append("\",\"cover\":\"https://img.example.com/c/").append(i)
+                    .append(".jpg\",\"likes\":").append(i * 7).append('}');
+        }
+        return "{\"sid\":\"next\",\"total\":" + items + ",\"results\":[" + results + "]}";
+    }
+
+    public void start() {
+        Thread acceptor = new Thread(() -> {
+            while (!socket.isClosed()) {
+                try {
+                    Socket client = socket.accept();
+                    connections.incrementAndGet();
+                    workers.execute(() -> serve(client));
+                } catch (IOException ignored) {
+                    // 关闭时退出
+                }
+            }
+        }, "load-test-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * 服务地址，如http://127.0.0.1:port
+     */
+    @NonNull
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + socket.getLocalPort();
+    }
+
+    public long getServedCount() {
+        return served.get();
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    /**
+     * 接受的连接数，与服务的请求数对比可知连接复用情况
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * 依次处理同一连接上的请求，直到客户端关闭、要求关闭或空闲超时
+     */
+    private void serve(@NonNull Socket client) {
+        try {
+            client.setSoTimeout(IDLE_TIMEOUT);
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(client.getInputStream(), UTF_8));
+            OutputStream out = client.getOutputStream();
+            String line;
+            while (null != (line = in.readLine())) {
+                String[] request = line.split(" ");
+                String path = request.length > 1 ? request[1] : "/";
+                int query = path.indexOf('?');
+                if (-1 != query) {
+                    path = path.substring(0, query);
+                }
+                String etag = null;
+                boolean close = false;
+                while (null != (line = in.readLine()) && !line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (-1 == colon) {
+                        continue;
+                    }
+                    String name = line.substring(0, colon).trim().toLowerCase(Locale.US);
+                    String value = line.substring(colon + 1).trim();
+                    if (REQ_ETAG.equals(name)) {
+                        etag = value;
+                    } else if ("connection".equals(name)) {
+                        close = "close".equalsIgnoreCase(value);
+                    }
+                }
+                byte[] body = bodies.get(path);
+                if (null == body) {
+                    write(out, "404 Not Found", null, new byte[0]);
+                } else if ("/etag".equals(path) && ETAG.equals(etag)) {
+                    notModified.incrementAndGet();
+                    write(out, "304 Not Modified", ETAG, new byte[0]);
+                } else {
+                    write(out, "200 OK", "/etag".equals(path) ? ETAG : null, body);
+                }
+                served.incrementAndGet();
+                if (close || null == line) {
+                    break;
+                }
+            }
+        } catch (IOException ignored) {
+            // 空闲超时或客户端断开
+        } finally {
+            try {
+                client.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static void write(@NonNull OutputStream out, @NonNull String status, String etag,
+                              @NonNull byte[] body) throws IOException {
+        StringBuilder head = new StringBuilder("HTTP/1.1 ").append(status).append("\r\n")
+                .append("Content-Type: application/json; charset=utf-8\r\n")
+                .append("Content-Length: ").append(body.length).append("\r\n");
+        if (null != etag) {
+            head.append("ETag: ").append(etag).append("\r\n");
+        }
+        out.write(head.append("\r\n").toString().getBytes(UTF_8));
+        out.write(body);
+        out.flush();
+    }
+
+}
@@ -5,6 +5,8 @@ import android.os.Handler;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 
+import com.leotesla.dao.http.HttpClientBase;
+
 public abstract class ActivityBase extends AppCompatActivity {
 
     private final SuperHandler<ActivityBase> mInternalHandler = new SuperHandler<>(this);
@@ -26,6 +28,7 @@ public abstract class ActivityBase extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        HttpClientBase.cancelAll(this);
         this.mInternalHandler.exit();
     }
 
@@ -0,0 +1,22 @@
+package com.leotesla.app;
+
+import android.support.annotation.NonNull;
+
+import com.leotesla.dao.http.HttpClientBase;
+import com.leotesla.dao.http.api.GET;
+import com.leotesla.dao.http.api.HttpApi;
+import com.leotesla.dao.http.api.Query;
+import com.leotesla.dao.http.data.Priority;
+
+/**
+ * 登录接口，编译期生成LoginHttpClient
+ */
+@HttpApi("LoginHttpClient")
+public interface LoginApi {
+
+    @GET(value = "login", priority = Priority.INTERACTIVE)
+    void getLogin(@Query("username") @NonNull String username,
+                  @Query("password") @NonNull String password,
+                  @NonNull HttpClientBase.PojoCallback<User> callback);
+
+}
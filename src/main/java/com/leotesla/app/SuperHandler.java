@@ -3,48 +3,111 @@ package com.leotesla.app;
 import android.os.Handler;
 import android.os.Looper;
 import android.os.Message;
-import android.support.v4.util.ArrayMap;
+import android.support.annotation.NonNull;
+import android.util.SparseArray;
 
-import com.leotesla.httpclient.data.KeyValuePair;
+import com.leotesla.dao.http.data.Liveness;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 增强型Handler，隔离不同的处理任务
+ * 处理器按注册顺序收到消息，指定what与接收所有what的处理器之间同样按注册顺序
  *
  * @version 1.0
  * <p>
  * Created by TeslaLiu on 2015/11/23.
  */
-public class SuperHandler<T> extends Handler {
+public class SuperHandler<T> extends Handler implements Liveness {
 
     private static final int IDLE_FLAG = -1111;
+    private static final Registration[] NO_HANDLERS = new Registration[0];
+    // 默认最多积攒的消息数，含post的Runnable
+    private static final int DEFAULT_PENDING_CAPACITY = 256;
+    // 推迟到唤醒后的任务上限，任务通常持有完整的响应
+    private static final int MAX_AWAKE_TASKS = 16;
+    // 唤醒后每轮Looper重放的消息数
+    private static final int REPLAY_BATCH = 8;
+    // 状态位：活动、已退出、消息恢复模式
+    private static final int STATE_ALIVE = 1;
+    private static final int STATE_EXITED = 1 << 1;
+    private static final int STATE_PENDING = 1 << 2;
+    // 所有实例共享的状态代数，任一实例状态变化时递增，使缓存的有效活动状态失效
+    private static final AtomicLong GENERATION = new AtomicLong();
+    // 被回收的外部Handler引用，出现时使缓存的有效活动状态失效
+    private static final ReferenceQueue<SuperHandler<?>> RELEASED_PARENTS =
+            new ReferenceQueue<>();
+
+    /**
+     * 挂起期间积攒消息的策略，队列满时优先丢弃最旧的普通消息
+     * Note: post的Runnable（如请求结果投递）同样计入容量，队列中只剩Runnable时丢弃最旧的Runnable
+     */
+    public enum PendingPolicy {
+        // 仅丢弃最旧
+        DROP_OLDEST,
+        // 相同what只保留最新一条
+        LATEST_PER_WHAT,
+        // 相同obj标记只保留最新一条
+        LATEST_PER_TAG
+    }
 
     // 内部Handler,双层设计
-    private WeakReference<SuperHandler> mInternalHandlerRef;
+    private WeakReference<SuperHandler<?>> mInternalHandlerRef;
     // 上下文实例
     private final WeakReference<T> mWeakReference;
-    // 当前是否活动状态
-    private boolean mAlive = true, mExited;
-    // 是否消息恢复模式
-    private boolean mPending = true;
+    // 打包的生命周期状态
+    private final AtomicInteger mState = new AtomicInteger(STATE_ALIVE | STATE_PENDING);
+    // 缓存的有效活动状态，高位为计算时的代数，最低位为结果
+    private volatile long mAliveCache = -1;
     // 积攒的未发送msg
-    private List<Message> mPendingMsg = new ArrayList<>();
+    private final ArrayDeque<Message> mPendingMsg = new ArrayDeque<>();
+    // 是否有积攒的消息待重放，期间新消息排在积攒的消息之后
+    private volatile boolean mBacklog;
+    // 唤醒后执行的任务，如推迟的响应解析
+    private final List<Deferred> mAwakeTasks = new ArrayList<>();
+    // 退出监听
+    private final List<OnExitListener> mExitListeners = new ArrayList<>();
+    // 积攒策略与容量
+    private PendingPolicy mPendingPolicy = PendingPolicy.DROP_OLDEST;
+    private int mPendingCapacity = DEFAULT_PENDING_CAPACITY;
+    // 分批重放任务
+    private final Runnable mReplayTask = this::replayPending;
 
     public interface ExtraHandler {
         void handle(Message msg);
     }
 
-    private List<KeyValuePair<Integer, ExtraHandler>> extraHandlers = new ArrayList<>();
-    private Map<ExtraHandler, HashSet<Integer>> locateMap = new ArrayMap<>();
-    private Set<Integer> whatSet = new HashSet<>();
+    /**
+     * 处理器的一次注册，按注册先后编号
+     */
+    private static final class Registration {
+
+        private final int order;
+        private final ExtraHandler handler;
+
+        private Registration(int order, ExtraHandler handler) {
+            this.order = order;
+            this.handler = handler;
+        }
+
+    }
+
+    // what对应的处理器，按注册顺序排列，写时复制，分发时无分配
+    private final SparseArray<Registration[]> dispatchTable = new SparseArray<>();
+    // 接收所有what的处理器，按注册顺序排列
+    private Registration[] wildcardHandlers = NO_HANDLERS;
+    // 下一次注册的编号
+    private int mNextOrder;
 
     public SuperHandler(T t) {
         this((Looper) null, t);
@@ -55,15 +118,15 @@ public class SuperHandler<T> extends Handler {
         this.mWeakReference = new WeakReference<>(t);
     }
 
-    public SuperHandler(SuperHandler handler, T t) {
+    public SuperHandler(SuperHandler<?> handler, T t) {
         super(handler.getLooper());
-        this.mInternalHandlerRef = new WeakReference<>(handler);
+        this.mInternalHandlerRef = new WeakReference<>(handler, RELEASED_PARENTS);
         this.mWeakReference = new WeakReference<>(t);
     }
 
     public SuperHandler(SuperHandler<T> handler) {
         super(handler.getLooper());
-        this.mInternalHandlerRef = new WeakReference<>(handler);
+        this.mInternalHandlerRef = new WeakReference<>(handler, RELEASED_PARENTS);
         this.mWeakReference = new WeakReference<>(handler.get());
     }
 
@@ -73,9 +136,15 @@ public class SuperHandler<T> extends Handler {
 
     @Override
     public void dispatchMessage(Message msg) {
-        if (this.mAlive && (null == mInternalHandlerRef
-                || null == mInternalHandlerRef.get()
-                || mInternalHandlerRef.get().isAlive())) {
+        if (mReplayTask == msg.getCallback()) {
+            replayPending();
+            return;
+        }
+        if (isEffectivelyAlive()) {
+            if (mBacklog && enqueueBehindBacklog(msg)) {
+                // 积攒的消息尚未重放完，保持原有顺序
+                return;
+            }
             // 该Handler没有挂起时, 如果没有外部Handler或者外部Handler被释放了或者外部Handler没被释放且没挂起时, 直接
 
             // 当前Handler处于活动模式时
@@ -83,29 +152,33 @@ public class SuperHandler<T> extends Handler {
             // 如果内部Handler不存在或内部Handler被回收了, 或者内部Handler也是活动模式时. 大概意思是: 内部Handler要不就没有, 有的话必须要是处于活动模式
             // 直接分发消息
             super.dispatchMessage(msg);
-        } else if (!this.mExited) {
+        } else if (!isExited()) {
             // 当前Handler没有退出时
             // 首先, 如果处于恢复模式, 则将该消息存储到集合中
             // 其次, 移除掉消息中的回调
-            if (this.mPending) {
-                this.mPendingMsg.add(Message.obtain(msg));
+            if (0 != (mState.get() & STATE_PENDING)) {
+                enqueuePending(msg);
             }
             removeCallbacks(msg.getCallback());
         }
     }
 
+    /**
+     * 指定what与接收所有what的处理器按注册顺序交替分发
+     */
     @Override
     public void handleMessage(Message msg) {
-        if (!this.mExited && this.mAlive && (null == mInternalHandlerRef
-                || null == mInternalHandlerRef.get() || mInternalHandlerRef.get().isAlive())) {
+        if (isEffectivelyAlive()) {
             super.handleMessage(msg);
-            for (KeyValuePair<Integer, ExtraHandler> pair : extraHandlers) {
-                if (IDLE_FLAG != pair.key) {
-                    if (pair.key == msg.what) {
-                        pair.value.handle(msg);
-                    }
+            Registration[] specific = dispatchTable.get(msg.what, NO_HANDLERS);
+            Registration[] wildcard = wildcardHandlers;
+            int i = 0, j = 0;
+            while (i < specific.length || j < wildcard.length) {
+                if (j == wildcard.length
+                        || i < specific.length && specific[i].order < wildcard[j].order) {
+                    specific[i++].handler.handle(msg);
                 } else {
-                    pair.value.handle(msg);
+                    wildcard[j++].handler.handle(msg);
                 }
             }
         }
@@ -121,9 +194,7 @@ public class SuperHandler<T> extends Handler {
      * @deprecated instead of {{@link #registerHandler(int, ExtraHandler)}}
      */
     public void addHandler(ExtraHandler handler) {
-        extraHandlers.add(new KeyValuePair<>(IDLE_FLAG, handler));
-        locateMap.put(handler, new HashSet<>());
-        whatSet.add(IDLE_FLAG);
+        wildcardHandlers = append(wildcardHandlers, handler);
     }
 
     /**
@@ -136,11 +207,7 @@ public class SuperHandler<T> extends Handler {
         if (what == IDLE_FLAG) {
             throw new IllegalArgumentException("arg what can not equals to " + IDLE_FLAG);
         }
-        HashSet<Integer> posSet = new HashSet<>(1);
-        extraHandlers.add(new KeyValuePair<>(what, handler));
-        posSet.add(extraHandlers.size() - 1);
-        locateMap.put(handler, posSet);
-        whatSet.add(what);
+        appendHandler(what, handler);
         return this;
     }
 
@@ -155,14 +222,10 @@ public class SuperHandler<T> extends Handler {
         if (what == IDLE_FLAG) {
             throw new IllegalArgumentException("arg what can not equals to " + IDLE_FLAG);
         }
-        if (whatSet.contains(what)) {
+        if (dispatchTable.indexOfKey(what) >= 0) {
             throw new IllegalArgumentException("arg what '" + what + "' is existed");
         }
-        HashSet<Integer> posSet = new HashSet<>(1);
-        extraHandlers.add(new KeyValuePair<>(what, handler));
-        posSet.add(extraHandlers.size() - 1);
-        locateMap.put(handler, posSet);
-        whatSet.add(what);
+        appendHandler(what, handler);
         return this;
     }
 
@@ -177,12 +240,7 @@ public class SuperHandler<T> extends Handler {
         if (what == IDLE_FLAG) {
             throw new IllegalArgumentException("arg what can not equals to " + IDLE_FLAG);
         }
-        unregisterHandler(what);
-        HashSet<Integer> posSet = new HashSet<>(1);
-        extraHandlers.add(new KeyValuePair<>(what, handler));
-        posSet.add(extraHandlers.size() - 1);
-        locateMap.put(handler, posSet);
-        whatSet.add(what);
+        dispatchTable.put(what, new Registration[]{new Registration(mNextOrder++, handler)});
         return this;
     }
 
@@ -193,21 +251,19 @@ public class SuperHandler<T> extends Handler {
      * @param whats   whats
      */
     public SuperHandler<T> registerHandler(ExtraHandler handler, int... whats) {
-        HashSet<Integer> posSet = new HashSet<>(whats.length);
-
-        if (checkDuplicate(whats)) {
-            throw new IllegalArgumentException("Argument whats can not duplicate");
-        }
-
-        for (int what : whats) {
-            if (what == IDLE_FLAG) {
+        for (int i = 0; i < whats.length; i++) {
+            if (whats[i] == IDLE_FLAG) {
                 throw new IllegalArgumentException("Argument what can not equals to " + IDLE_FLAG);
             }
-            extraHandlers.add(new KeyValuePair<>(what, handler));
-            posSet.add(extraHandlers.size() - 1);
-            whatSet.add(what);
+            for (int j = 0; j < i; j++) {
+                if (whats[i] == whats[j]) {
+                    throw new IllegalArgumentException("Argument whats can not duplicate");
+                }
+            }
+        }
+        for (int what : whats) {
+            appendHandler(what, handler);
         }
-        locateMap.put(handler, posSet);
         return this;
     }
 
@@ -217,13 +273,8 @@ public class SuperHandler<T> extends Handler {
      * @param whats whats
      */
     public SuperHandler<T> unregisterHandler(int... whats) {
-        Iterator<KeyValuePair<Integer, ExtraHandler>> iterator = extraHandlers.iterator();
-        while (iterator.hasNext()) {
-            KeyValuePair<Integer, ExtraHandler> pair = iterator.next();
-            for (int what : whats)
-                if (pair.key == what) {
-                    iterator.remove();
-                }
+        for (int what : whats) {
+            dispatchTable.delete(what);
         }
         return this;
     }
@@ -232,7 +283,8 @@ public class SuperHandler<T> extends Handler {
      * 清除所有处理器
      */
     public SuperHandler<T> clearHandlers() {
-        extraHandlers.clear();
+        dispatchTable.clear();
+        wildcardHandlers = NO_HANDLERS;
         return this;
     }
 
@@ -253,52 +305,309 @@ public class SuperHandler<T> extends Handler {
      */
     public SuperHandler<T> clearHandlers(List<ExtraHandler> handlers) {
         for (ExtraHandler handler : handlers) {
-            Set<Integer> posSet = locateMap.get(handler);
-            for (int index : posSet) {
-                if (index < extraHandlers.size() && handler == extraHandlers.get(index)) {
-                    extraHandlers.remove(index);
+            wildcardHandlers = remove(wildcardHandlers, handler);
+            // 倒序遍历，删除不影响未遍历的位置
+            for (int i = dispatchTable.size() - 1; i >= 0; i--) {
+                Registration[] remains = remove(dispatchTable.valueAt(i), handler);
+                if (0 == remains.length) {
+                    dispatchTable.removeAt(i);
+                } else {
+                    dispatchTable.setValueAt(i, remains);
                 }
             }
         }
         return this;
     }
 
-    public synchronized void setPending(boolean pending) {
-        this.mPending = pending;
-        if (!this.mPending) {
-            this.mPendingMsg.clear();
+    private void appendHandler(int what, ExtraHandler handler) {
+        dispatchTable.put(what, append(dispatchTable.get(what, NO_HANDLERS), handler));
+    }
+
+    /**
+     * 追加在末尾，编号递增，数组保持按注册顺序排列
+     */
+    private Registration[] append(Registration[] handlers, ExtraHandler handler) {
+        Registration[] result = Arrays.copyOf(handlers, handlers.length + 1);
+        result[handlers.length] = new Registration(mNextOrder++, handler);
+        return result;
+    }
+
+    private static Registration[] remove(Registration[] handlers, ExtraHandler handler) {
+        int count = 0;
+        for (Registration item : handlers) {
+            if (item.handler != handler) count++;
+        }
+        if (count == handlers.length) {
+            return handlers;
+        }
+        Registration[] result = new Registration[count];
+        int index = 0;
+        for (Registration item : handlers) {
+            if (item.handler != handler) result[index++] = item;
+        }
+        return result;
+    }
+
+    public void setPending(boolean pending) {
+        if (pending) {
+            updateState(STATE_PENDING, 0);
+        } else {
+            updateState(0, STATE_PENDING);
+            clearPending();
+            // 挂起时不再积攒，推迟的任务结果无人接收；活动时任务已恢复
+            if (DEAD == getLiveness()) {
+                dropAwakeTasks();
+            }
+        }
+    }
+
+    /**
+     * 设置挂起期间的积攒策略
+     *
+     * @param policy   策略
+     * @param capacity 最多积攒的消息数，含post的Runnable，默认{@value #DEFAULT_PENDING_CAPACITY}
+     */
+    public void setPendingPolicy(PendingPolicy policy, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("arg capacity must be positive");
+        }
+        synchronized (mPendingMsg) {
+            this.mPendingPolicy = policy;
+            this.mPendingCapacity = capacity;
+            while (mPendingMsg.size() > capacity) {
+                // 超出容量时逐条丢弃
+                dropOldest();
+            }
         }
     }
 
     /**
      * 挂起，不处理任务
      */
-    public synchronized void suspend() {
-        this.mAlive = false;
+    public void suspend() {
+        updateState(0, STATE_ALIVE);
     }
 
     /**
-     * 再次唤醒
+     * 再次唤醒，积攒的消息分多轮Looper重放，避免一次性突发
      */
-    public synchronized boolean awake() {
-        if (null != mWeakReference.get()) {
-            this.mAlive = true;
+    public boolean awake() {
+        if (null != mWeakReference.get() && revive()) {
+            removeCallbacks(mReplayTask);
+            post(mReplayTask);
+            runAwakeTasks();
+        } else {
+            clearPending();
+        }
+
+        return isAlive();
+    }
+
+    /**
+     * 重放期间到达的消息排到积攒队列末尾
+     * @return  false, 积攒的消息已重放完，直接分发
+     */
+    private boolean enqueueBehindBacklog(Message msg) {
+        synchronized (mPendingMsg) {
+            if (mPendingMsg.isEmpty()) {
+                mBacklog = false;
+                return false;
+            }
+            mPendingMsg.addLast(Message.obtain(msg));
+            return true;
+        }
+    }
+
+    /**
+     * 积攒消息，按策略合并并限制容量
+     */
+    private void enqueuePending(Message msg) {
+        synchronized (mPendingMsg) {
+            if (PendingPolicy.DROP_OLDEST != mPendingPolicy) {
+                Iterator<Message> iterator = mPendingMsg.iterator();
+                while (iterator.hasNext()) {
+                    Message pending = iterator.next();
+                    if (isSameSlot(pending, msg)) {
+                        iterator.remove();
+                        pending.recycle();
+                        break;
+                    }
+                }
+            }
+            while (mPendingMsg.size() >= mPendingCapacity) {
+                // 超出容量时逐条丢弃
+                dropOldest();
+            }
+            mPendingMsg.addLast(Message.obtain(msg));
+            mBacklog = true;
+        }
+    }
+
+    /**
+     * 丢弃最旧的普通消息，队列中只剩Runnable时丢弃最旧的Runnable
+     */
+    private void dropOldest() {
+        Iterator<Message> iterator = mPendingMsg.iterator();
+        while (iterator.hasNext()) {
+            Message pending = iterator.next();
+            if (null == pending.getCallback()) {
+                iterator.remove();
+                pending.recycle();
+                return;
+            }
+        }
+        Message oldest = mPendingMsg.pollFirst();
+        if (null != oldest) {
+            oldest.recycle();
+        }
+    }
+
+    /**
+     * 两条消息在当前策略下是否可以合并
+     */
+    private boolean isSameSlot(Message pending, Message msg) {
+        if (null != pending.getCallback() || null != msg.getCallback()) {
+            // Runnable仅与同一实例合并
+            return pending.getCallback() == msg.getCallback();
+        }
+        if (PendingPolicy.LATEST_PER_WHAT == mPendingPolicy) {
+            return pending.what == msg.what;
+        }
+        return null != msg.obj && msg.obj.equals(pending.obj);
+    }
+
+    /**
+     * 重放一批积攒的消息，剩余部分留到下一轮Looper
+     * Note: 直接分发而不重新入队，重放期间到达的消息排在积攒队列末尾，整体保持先后顺序
+     */
+    private void replayPending() {
+        for (int i = 0; i < REPLAY_BATCH && isEffectivelyAlive(); i++) {
+            Message msg;
+            synchronized (mPendingMsg) {
+                msg = mPendingMsg.pollFirst();
+                if (null == msg) {
+                    mBacklog = false;
+                    return;
+                }
+            }
+            try {
+                super.dispatchMessage(msg);
+            } finally {
+                msg.recycle();
+            }
+        }
+        synchronized (mPendingMsg) {
+            if (mPendingMsg.isEmpty()) {
+                mBacklog = false;
+            } else if (isEffectivelyAlive()) {
+                post(mReplayTask);
+            }
+        }
+    }
+
+    private void clearPending() {
+        synchronized (mPendingMsg) {
             for (Message message : mPendingMsg) {
-                sendMessage(message);
+                message.recycle();
+            }
+            mPendingMsg.clear();
+            mBacklog = false;
+        }
+    }
+
+    @Override
+    public int getLiveness() {
+        if (isOrphaned()) {
+            return DEAD;
+        }
+        int state = mState.get();
+        if (0 != (state & STATE_EXITED)) {
+            return DEAD;
+        } else if (0 != (state & STATE_ALIVE)) {
+            return ALIVE;
+        }
+        // 挂起时不积攒消息则结果会被丢弃
+        return 0 != (state & STATE_PENDING) ? SUSPENDED : DEAD;
+    }
+
+    @Override
+    public boolean whenAlive(@NonNull Deferred task) {
+        synchronized (mAwakeTasks) {
+            if (mAwakeTasks.size() >= MAX_AWAKE_TASKS) {
+                return false;
+            }
+            mAwakeTasks.add(task);
+        }
+        // 登记期间可能已被唤醒或退出
+        int liveness = getLiveness();
+        if (ALIVE == liveness) {
+            runAwakeTasks();
+        } else if (DEAD == liveness) {
+            dropAwakeTasks();
+        }
+        return true;
+    }
+
+    private void runAwakeTasks() {
+        Deferred[] tasks;
+        synchronized (mAwakeTasks) {
+            if (mAwakeTasks.isEmpty()) {
+                return;
+            }
+            tasks = mAwakeTasks.toArray(new Deferred[mAwakeTasks.size()]);
+            mAwakeTasks.clear();
+        }
+        for (Deferred task : tasks) {
+            task.resume();
+        }
+    }
+
+    /**
+     * 放弃推迟的任务，由任务自行结束
+     */
+    private void dropAwakeTasks() {
+        Deferred[] tasks;
+        synchronized (mAwakeTasks) {
+            if (mAwakeTasks.isEmpty()) {
+                return;
             }
+            tasks = mAwakeTasks.toArray(new Deferred[mAwakeTasks.size()]);
+            mAwakeTasks.clear();
+        }
+        for (Deferred task : tasks) {
+            task.drop();
         }
-        this.mPendingMsg.clear();
+    }
 
-        return this.mAlive;
+    @Override
+    public void addOnExitListener(@NonNull OnExitListener listener) {
+        synchronized (mExitListeners) {
+            if (!isExited()) {
+                if (!mExitListeners.contains(listener)) {
+                    mExitListeners.add(listener);
+                }
+                return;
+            }
+        }
+        listener.onExit(this);
     }
 
     /**
      * 完全退出，清除所有处理器
      */
-    public synchronized void exit() {
-        this.mExited = true;
-        suspend();
-        this.mPendingMsg.clear();
+    public void exit() {
+        updateState(STATE_EXITED, STATE_ALIVE);
+        // 通知监听方，如取消投递到本Handler的请求
+        OnExitListener[] listeners;
+        synchronized (mExitListeners) {
+            listeners = mExitListeners.toArray(new OnExitListener[mExitListeners.size()]);
+            mExitListeners.clear();
+        }
+        for (OnExitListener listener : listeners) {
+            listener.onExit(this);
+        }
+        clearPending();
+        dropAwakeTasks();
         clearHandlers();
         removeCallbacksAndMessages(null);
         mWeakReference.clear();
@@ -308,7 +617,82 @@ public class SuperHandler<T> extends Handler {
      * 判断是否活动状态
      */
     public boolean isAlive() {
-        return this.mAlive;
+        return 0 != (mState.get() & STATE_ALIVE);
+    }
+
+    /**
+     * 判断是否已退出
+     */
+    public boolean isExited() {
+        return 0 != (mState.get() & STATE_EXITED);
+    }
+
+    /**
+     * 判断是否有效活动，即自身和外部Handler链都处于活动状态
+     * Note: 结果按状态代数缓存，状态未变化时为常数时间且不访问弱引用；
+     * 外部Handler被回收时引用入队，同样使缓存失效
+     */
+    public boolean isEffectivelyAlive() {
+        if (null != RELEASED_PARENTS.poll()) {
+            while (null != RELEASED_PARENTS.poll()) {
+                // 一次失效即可，清空队列
+            }
+            GENERATION.incrementAndGet();
+        }
+        long generation = GENERATION.get();
+        long cache = mAliveCache;
+        if ((cache >> 1) == generation) {
+            return 0 != (cache & 1);
+        }
+        boolean alive = isAlive();
+        if (alive && null != mInternalHandlerRef) {
+            SuperHandler<?> parent = mInternalHandlerRef.get();
+            alive = null != parent ? parent.isEffectivelyAlive() : !isOrphaned();
+        }
+        mAliveCache = (generation << 1) | (alive ? 1 : 0);
+        return alive;
+    }
+
+    /**
+     * 外部Handler已被回收时视为已退出，标记后不再恢复
+     * @return  true, 外部Handler已被回收
+     */
+    private boolean isOrphaned() {
+        WeakReference<SuperHandler<?>> ref = mInternalHandlerRef;
+        if (null == ref || null != ref.get()) {
+            return false;
+        }
+        if (!isExited()) {
+            updateState(STATE_EXITED, STATE_ALIVE);
+        }
+        return true;
+    }
+
+    /**
+     * 原子地恢复活动状态，已退出时不再恢复
+     * @return  false, 已退出
+     */
+    private boolean revive() {
+        int state;
+        do {
+            state = mState.get();
+            if (0 != (state & STATE_EXITED)) {
+                return false;
+            }
+        } while (!mState.compareAndSet(state, state | STATE_ALIVE));
+        GENERATION.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 原子更新状态位并使所有缓存的有效活动状态失效
+     */
+    private void updateState(int set, int clear) {
+        int state;
+        do {
+            state = mState.get();
+        } while (!mState.compareAndSet(state, (state | set) & ~clear));
+        GENERATION.incrementAndGet();
     }
 
     /**
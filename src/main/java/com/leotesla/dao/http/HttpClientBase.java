@@ -6,11 +6,24 @@ import android.content.res.Resources;
 import android.os.Handler;
 import android.os.Looper;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 
+import com.leotesla.dao.http.data.CallbackBase;
 import com.leotesla.dao.http.data.ClientArrayCallback;
 import com.leotesla.dao.http.data.ClientCallback;
+import com.leotesla.dao.http.data.ClientChunkCallback;
 import com.leotesla.dao.http.data.ClientSidArrayCallback;
 import com.leotesla.dao.http.data.ClientVoidCallback;
+import com.leotesla.dao.http.data.EtagIndex;
+import com.leotesla.dao.http.data.HttpExecutors;
+import com.leotesla.dao.http.data.MemoryCache;
+import com.leotesla.dao.http.data.ParseExecutor;
+import com.leotesla.dao.http.data.Priority;
+import com.leotesla.dao.http.data.RequestMetrics;
+import com.leotesla.dao.http.data.RequestScheduler;
+import com.leotesla.dao.http.data.SingleFlight;
+import com.leotesla.dao.http.data.SnapshotFile;
+import com.leotesla.dao.http.data.TagRegistry;
 import com.leotesla.httpclient.ClientError;
 import com.leotesla.httpclient.ClientErrorHandler;
 import com.leotesla.httpclient.ClientModule;
@@ -22,9 +35,20 @@ import com.leotesla.httpclient.internal.HttpRequest;
 import com.leotesla.httpclient.internal.HttpResponse;
 import com.leotesla.httpclient.internal.SSLManager;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -39,10 +63,46 @@ public class HttpClientBase {
 
     // 全局异常处理
     private static InternalClientErrorHandler ERROR_HANDLER;
+    // 初始化后冻结的进程级配置
+    private static volatile ClientConfig CONFIG;
+    // 异步载入的证书内容
+    private static volatile byte[] CERTIFICATE;
+    // 证书是否已固定到SSLManager
+    private static volatile boolean CERT_PINNED;
+    // 内存ETag索引
+    private static EtagIndex ETAG_INDEX;
+    // 已发起请求对应的资源标识（地址与参数），由工作线程在执行前取走
+    private static final Map<HttpRequest, String> RESOURCES = new WeakHashMap<>();
+    // 进程级共享引擎
+    private static InternalClientModule SHARED_ENGINE;
+    // 客户端类是否自定义了请求预处理，客户端类数量有限不做淘汰
+    private static final ConcurrentHashMap<Class<?>, Boolean> PRE_EXECUTE =
+            new ConcurrentHashMap<>();
+    // 进程内相同GET请求合并
+    private static final SingleFlight FLIGHTS = new SingleFlight();
+    // 磁盘缓存之前的已解析对象缓存
+    private static final MemoryCache MEMORY_CACHE = new MemoryCache(64);
+    // 按优先级分道的请求调度
+    private static final RequestScheduler SCHEDULER = new RequestScheduler(4);
+    // 进行中请求标识表
+    private static final TagRegistry TAGS = new TagRegistry();
+    // 请求耗时统计
+    private static final RequestMetrics METRICS = new RequestMetrics(64);
+    // 响应解析线程，与网络线程分离
+    private static final ParseExecutor PARSER = new ParseExecutor(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), 32);
+    // 错误表缓存时长，分钟
+    private static final int ERROR_BOOK_MINUTES = 10;
+    // 经cacheConfig创建的缓存策略对应的有效时长，毫秒
+    private static final Map<CacheConfig, Long> CACHE_TTLS =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    // 错误表缓存策略，固定实例保证相同请求可以合并
+    private static final CacheConfig ERROR_BOOK_CACHE =
+            cacheConfig(ERROR_BOOK_MINUTES, TimeUnit.MINUTES, true);
     // 上下文
     protected final Context context;
-    // 请求核心
-    protected final ClientModule engine;
+    // 请求核心，可能为进程级共享引擎；子类通过get系列与execute发起请求，回调路由到本客户端Handler
+    private final ClientModule engine;
     // 默认事件回调主线程Handler
     private Handler handler = new Handler(Looper.getMainLooper());
 
@@ -53,18 +113,370 @@ public class HttpClientBase {
      */
     public static void init(@NonNull Application application,
                             @NonNull HttpClientHandler httpClientHandler) {
+        init(application, httpClientHandler, new Type[0]);
+    }
+
+    /**
+     * 初始化并预热数据模型
+     * @param application   应用上下文
+     * @param httpClientHandler 错误处理器
+     * @param models        常用数据模型，在后台构建反序列化器，首个请求解析时无需构建
+     */
+    public static void init(@NonNull Application application,
+                            @NonNull HttpClientHandler httpClientHandler,
+                            @NonNull Type... models) {
         // 初始化错误处理器和错误码
         ERROR_HANDLER = new InternalClientErrorHandler(application.getResources(), httpClientHandler);
+        // 解析缓存目录并冻结配置
+        File cacheDir = null != application.getExternalCacheDir()
+                ? application.getExternalCacheDir() : application.getCacheDir();
+        ClientConfig config = new ClientConfig(new File(cacheDir, "http"));
+        CONFIG = config;
+        // 载入ETag索引
+        ETAG_INDEX = new EtagIndex(new File(config.cacheDir, "etag.idx"), 512, 32);
+        ETAG_INDEX.loadAsync();
+        // 异步载入证书和错误表快照
+        HttpExecutors.background().execute(() -> {
+            CERTIFICATE = loadCertificate(application);
+            HttpErrorBook.load(new File(config.cacheDir, "error.book"));
+            for (Type model : models) {
+                CallbackBase.prepare(model);
+            }
+        });
+    }
+
+    /**
+     * 读取内置证书
+     */
+    private static byte[] loadCertificate(@NonNull Context context) {
+        InputStream in = null;
+        try {
+            in = context.getAssets().open(SSLManager.DEFAULT_CERT_HOST + ".cer");
+            ByteArrayOutputStream out = new ByteArrayOutputStream(2048);
+            byte[] buffer = new byte[1024];
+            int count;
+            while (-1 != (count = in.read(buffer))) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        } finally {
+            SnapshotFile.closeQuietly(in);
+        }
+    }
+
+    /**
+     * 进程级请求配置，初始化后不再变化
+     */
+    private final static class ClientConfig {
+
+        // 缓存版本
+        private static final int CACHE_VERSION = 1;
+        // 缓存大小
+        private static final int CACHE_SIZE = 1024 * 1024 * 8 * 10;
+
+        private final File cacheDir;
+        private final String cachePath;
+
+        private ClientConfig(@NonNull File cacheDir) {
+            this.cacheDir = cacheDir;
+            this.cachePath = cacheDir.getPath();
+        }
+
     }
 
     /**
      * 常量放到构造器中初始化防止加固泄露
+     * @throws IllegalStateException 尚未调用{@link #init(Application, HttpClientHandler)}
      */
     public HttpClientBase(@NonNull Context context, Handler handler) {
+        requireConfig();
         this.context = context.getApplicationContext();
         if (null != handler)
             this.handler = handler;
-        this.engine = new InternalClientModule(this.handler);
+        // 自定义了请求预处理的客户端独占引擎，其余共享进程级引擎
+        this.engine = overridesPreExecute(getClass())
+                ? new InternalClientModule(this.context, this.handler, this)
+                : sharedEngine(this.context);
+    }
+
+    /**
+     * 已冻结的进程级配置
+     * @throws IllegalStateException 尚未初始化
+     */
+    @NonNull
+    private static ClientConfig requireConfig() {
+        ClientConfig config = CONFIG;
+        if (null == config) {
+            throw new IllegalStateException(
+                    "HttpClientBase.init(Application, HttpClientHandler) must be called first");
+        }
+        return config;
+    }
+
+    /**
+     * 进程级共享引擎，所有客户端共用同一套工作线程和连接，回调按客户端Handler路由
+     */
+    private static synchronized ClientModule sharedEngine(@NonNull Context context) {
+        if (null == SHARED_ENGINE) {
+            SHARED_ENGINE = new InternalClientModule(context,
+                    new Handler(Looper.getMainLooper()), null);
+        }
+        return SHARED_ENGINE;
+    }
+
+    /**
+     * 客户端是否覆写了{@link #onPreExecute(HttpRequest)}，每个客户端类只反射一次
+     */
+    private static boolean overridesPreExecute(Class<?> clazz) {
+        Boolean overrides = PRE_EXECUTE.get(clazz);
+        if (null == overrides) {
+            overrides = false;
+            for (Class<?> type = clazz; HttpClientBase.class != type; type = type.getSuperclass()) {
+                try {
+                    type.getDeclaredMethod("onPreExecute", HttpRequest.class);
+                    overrides = true;
+                    break;
+                } catch (NoSuchMethodException ignored) {
+                }
+            }
+            PRE_EXECUTE.putIfAbsent(clazz, overrides);
+        }
+        return overrides;
+    }
+
+    /**
+     * 请求合并统计
+     */
+    public static SingleFlight getFlights() {
+        return FLIGHTS;
+    }
+
+    /**
+     * 已解析对象内存缓存
+     */
+    public static MemoryCache getMemoryCache() {
+        return MEMORY_CACHE;
+    }
+
+    /**
+     * 请求调度，可查询各优先级道排队深度
+     */
+    public static RequestScheduler getScheduler() {
+        return SCHEDULER;
+    }
+
+    /**
+     * 请求耗时统计，可按接口查看各阶段耗时分布或设置单个请求的监听
+     */
+    public static RequestMetrics getMetrics() {
+        return METRICS;
+    }
+
+    /**
+     * 响应解析线程池，可调整线程数与排队上限，查询排队深度
+     */
+    public static ParseExecutor getParseExecutor() {
+        return PARSER;
+    }
+
+    /**
+     * 取消标识下所有进行中的请求，尚未发起的不再发起，已发起的不再解析和回调
+     * @param tag   回调的tag，或未指定回调Handler时请求所属客户端的Handler
+     * @return      取消的请求数
+     */
+    public static int cancelAll(@NonNull Object tag) {
+        return TAGS.cancelAll(tag);
+    }
+
+    /**
+     * 创建缓存策略，使用该策略的GET请求除磁盘缓存外，有效期内直接使用内存中已解析的对象，无IO也无解析
+     * Note: 直接由CacheConfig.create创建的策略只使用引擎的磁盘缓存
+     * @param duration  有效时长
+     * @param unit      时长单位
+     * @param flag      同CacheConfig.create
+     */
+    protected static CacheConfig cacheConfig(long duration, @NonNull TimeUnit unit, boolean flag) {
+        CacheConfig config = CacheConfig.create(duration, unit, flag);
+        CACHE_TTLS.put(config, unit.toMillis(duration));
+        return config;
+    }
+
+    /**
+     * 缓存策略对应的内存缓存时长，毫秒
+     * @return  0, 不使用内存缓存
+     */
+    private static long memoryTtlOf(CacheConfig config) {
+        Long ttl = null == config ? null : CACHE_TTLS.get(config);
+        return null == ttl ? 0 : ttl;
+    }
+
+    /**
+     * 发起GET请求，与进行中的相同请求合并
+     * @see #get(CacheConfig, String, Map, CallbackBase)
+     */
+    protected final void get(@NonNull String url, Map<String, String> params,
+                             @NonNull CallbackBase<?> callback) {
+        get(null, url, params, callback);
+    }
+
+    /**
+     * 发起GET请求，地址、参数和缓存策略都相同的进行中请求只发起一次网络交换，
+     * 解析结果分发到各自回调的Handler；缓存策略由{@link #cacheConfig(long, TimeUnit, boolean)}
+     * 创建时，有效期内的相同请求直接使用内存中已解析的对象
+     * @param config    缓存策略，可为空
+     * @param url       地址
+     * @param params    参数
+     * @param callback  回调
+     * Note: 优先级取回调上设置的值，默认为{@link Priority#NORMAL}
+     */
+    protected final void get(CacheConfig config, @NonNull String url, Map<String, String> params,
+                             @NonNull CallbackBase<?> callback) {
+        get(callback.getPriority(), config, url, params, callback);
+    }
+
+    /**
+     * 按优先级发起GET请求，高优先级请求先占用网络槽位，交互请求总是立即发起
+     * @param priority  优先级
+     * @see #get(CacheConfig, String, Map, CallbackBase)
+     */
+    protected final void get(@NonNull Priority priority, CacheConfig config,
+                             @NonNull String url, Map<String, String> params,
+                             @NonNull CallbackBase<?> callback) {
+        callback.prioritize(priority);
+        callback.traceTo(METRICS, url);
+        callback.parseOn(PARSER);
+        if (null != config) {
+            // 只有带缓存策略的请求由引擎按解析结果写入磁盘缓存
+            callback.cacheByEngine();
+        }
+        // 内存缓存命中也投递到本客户端的Handler
+        callback.routeTo(this.handler);
+        RequestKey key = new RequestKey(config, url, params);
+        long memoryTtl = memoryTtlOf(config);
+        if (0 < memoryTtl) {
+            if (MEMORY_CACHE.serve(key, callback)) {
+                return;
+            }
+            callback.cacheTo(MEMORY_CACHE, key, memoryTtl);
+        }
+        Runnable start = () -> {
+            // 登记完成前工作线程等待取得资源标识
+            synchronized (RESOURCES) {
+                HttpRequest request = null == config ? this.engine.get(url, params, callback)
+                        : this.engine.get(config, url, params, callback);
+                if (null != request) {
+                    RESOURCES.put(request, key.resource);
+                }
+            }
+        };
+        if (null != ETAG_INDEX) {
+            callback.trackEtag(ETAG_INDEX, key.resource, () -> {
+                // 未修改响应无法还原时，清除ETag后重新完整请求
+                ETAG_INDEX.put(key.resource, "");
+                start.run();
+            });
+        }
+        TAGS.register(callback);
+        if (FLIGHTS.join(key, callback)) {
+            return;
+        }
+        SCHEDULER.submit(callback, start);
+    }
+
+    /**
+     * 以引擎发起get系列未覆盖的请求，如POST
+     * @see #execute(Priority, String, CallbackBase, EngineCall)
+     */
+    protected final void execute(@NonNull String url, @NonNull CallbackBase<?> callback,
+                                 @NonNull EngineCall call) {
+        execute(callback.getPriority(), url, callback, call);
+    }
+
+    /**
+     * 以引擎发起get系列未覆盖的请求，与GET相同经调度器占用网络槽位、登记取消标识、统计耗时，
+     * 在解析线程解析并路由到本客户端Handler；不做合并、内存缓存与ETag
+     * @param priority  优先级
+     * @param url       地址，用于耗时统计
+     * @param callback  回调，须与call中交给引擎的回调相同
+     * @param call      以本客户端的引擎发起请求，在获得网络槽位后执行
+     */
+    protected final void execute(@NonNull Priority priority, @NonNull String url,
+                                 @NonNull CallbackBase<?> callback, @NonNull EngineCall call) {
+        callback.prioritize(priority);
+        callback.traceTo(METRICS, url);
+        callback.parseOn(PARSER);
+        callback.routeTo(this.handler);
+        TAGS.register(callback);
+        SCHEDULER.submit(callback, () -> call.start(this.engine));
+    }
+
+    /**
+     * 由子类以引擎发起的请求
+     */
+    protected interface EngineCall {
+
+        /**
+         * @param engine    本客户端使用的引擎，可能为进程级共享引擎
+         * @return          引擎创建的请求，可为空
+         */
+        HttpRequest start(@NonNull ClientModule engine);
+
+    }
+
+    /**
+     * GET请求标识
+     */
+    private final static class RequestKey {
+
+        private final CacheConfig config;
+        private final String url;
+        private final Map<String, String> params;
+        private final int hash;
+        // 地址与按名称排序的参数，作为ETag索引的资源标识
+        private final String resource;
+
+        private RequestKey(CacheConfig config, @NonNull String url, Map<String, String> params) {
+            this.config = config;
+            this.url = url;
+            // 复制一份防止调用方复用参数表
+            this.params = null == params || params.isEmpty()
+                    ? Collections.emptyMap() : new HashMap<>(params);
+            this.hash = 31 * (31 * url.hashCode() + this.params.hashCode())
+                    + (null == config ? 0 : config.hashCode());
+            this.resource = toResource(url, this.params);
+        }
+
+        private static String toResource(@NonNull String url, @NonNull Map<String, String> params) {
+            if (params.isEmpty()) {
+                return url;
+            }
+            StringBuilder builder = new StringBuilder(url);
+            char separator = '?';
+            for (Map.Entry<String, String> entry : new TreeMap<>(params).entrySet()) {
+                builder.append(separator).append(entry.getKey()).append('=')
+                        .append(entry.getValue());
+                separator = '&';
+            }
+            return builder.toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof RequestKey)) return false;
+            RequestKey key = (RequestKey) o;
+            return hash == key.hash && url.equals(key.url) && params.equals(key.params)
+                    && (null == config ? null == key.config : config.equals(key.config));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
     }
 
     /**
@@ -176,15 +588,20 @@ public class HttpClientBase {
     /**
      * 此类定义了请求的预处理（拦截器机制）注入了配置，注意Handler为模块所在Handler
      */
-    private class InternalClientModule extends ClientModule {
+    private final static class InternalClientModule extends ClientModule {
 
-        // 服务端头部信息中的etag资源状态标识，内容为Etag:W/"71f-5s1+guZP4QsgdPvsa5n8FPRee/I"
-        private final static String RES_ETAG = "ETag";
-        // 客户端请求时头部需要携带此标识，值为上次的该请求etag，比如：X-DOUPAI-ETAG-MATCH:W/"71f-5s1+guZP4QsgdPvsa5n8FPRee/I"
-        private final static String REQ_ETAG = "X-DOUPAI-ETAG-MATCH";
+        // 发出中的请求地址，用于响应后更新ETag索引
+        private final Map<HttpResponse, String> pendingUrls = new WeakHashMap<>();
+        // 应用上下文
+        private final Context context;
+        // 独占引擎的客户端，共享引擎为空
+        private final HttpClientBase owner;
 
-        private InternalClientModule(Handler handler) {
+        private InternalClientModule(@NonNull Context context, Handler handler,
+                                     HttpClientBase owner) {
             super(handler);
+            this.context = context;
+            this.owner = owner;
         }
 
         @Override
@@ -194,40 +611,100 @@ public class HttpClientBase {
 
         @Override
         public boolean onPreRequest(@NonNull HttpRequest request) {
+            // 配置均在初始化阶段完成，此处不做IO；缓存参数挂在每个请求上，只做字段赋值
+            request.cache(true, ClientConfig.CACHE_VERSION, ClientConfig.CACHE_SIZE,
+                    requireConfig().cachePath);
+            if (!CERT_PINNED) {
+                pinCertificate(request);
+            }
+            ERROR_HANDLER.httpClientHandler.onPreRequest(request);
+
+            return null != owner && owner.onPreExecute(request);
+        }
+
+        /**
+         * 证书固定前的请求携带证书，固定后不再检查
+         */
+        private void pinCertificate(@NonNull HttpRequest request) {
+            // 防止重复初始化
+            if (SSLManager.isInitialed(SSLManager.DEFAULT_CERT_HOST)) {
+                CERT_PINNED = true;
+                return;
+            }
             try {
-                request.cache(true, 1, 1024 * 1024 * 8 * 10,
-                        context.getExternalCacheDir() + "/http");
-                // 防止重复初始化
-                if (!SSLManager.isInitialed(SSLManager.DEFAULT_CERT_HOST)) {
-                    request.getConfig().setCerties(new KeyValuePair<>(SSLManager.DEFAULT_CERT_HOST,
-                                    context.getAssets().open(SSLManager.DEFAULT_CERT_HOST + ".cer")));
-                }
+                byte[] certificate = CERTIFICATE;
+                // 证书尚未异步载入完成时直接读取
+                InputStream in = null != certificate ? new ByteArrayInputStream(certificate)
+                        : context.getAssets().open(SSLManager.DEFAULT_CERT_HOST + ".cer");
+                request.getConfig().setCerties(
+                        new KeyValuePair<>(SSLManager.DEFAULT_CERT_HOST, in));
             } catch (Exception e) {
                 e.printStackTrace();
             }
-            ERROR_HANDLER.httpClientHandler.onPreRequest(request);
-
-            return onPreExecute(request);
         }
 
         @Override
         public boolean onExecuteRequest(@NonNull HttpRequest request) {
-            Map<String, List<String>> cacheHead = request.getResponse().getHeader(true);
-            if (null != cacheHead) {
-                // 缓存中获取到头部信息
-                if (cacheHead.containsKey(RES_ETAG)) {
-                    request.addHeader(REQ_ETAG, cacheHead.get(RES_ETAG).get(0));
-                }
+            if (null == ETAG_INDEX) {
+                return false;
+            }
+            String url;
+            synchronized (RESOURCES) {
+                url = RESOURCES.remove(request);
+            }
+            if (null == url) {
+                // 未经get系列方法发起的请求只能以地址为标识
+                url = request.getUrl();
+            }
+            String etag = ETAG_INDEX.get(url);
+            String cachedEtag = null;
+            if (null == etag) {
+                // 尚未索引时回退到磁盘缓存头部，之后由内存索引直接命中
+                cachedEtag = readCachedEtag(request);
+                etag = null == cachedEtag ? "" : cachedEtag;
+                ETAG_INDEX.put(url, etag);
+            }
+            // 只有未修改时能还原结果才携带ETag：保留了该ETag下的解析结果，或磁盘缓存了同一版本的响应；
+            // 重启或淘汰后两者皆无，发起完整请求
+            if (!etag.isEmpty() && (ETAG_INDEX.hasResult(url, etag) || etag.equals(
+                    null != cachedEtag ? cachedEtag : readCachedEtag(request)))) {
+                request.addHeader(EtagIndex.REQ_ETAG, etag);
+            }
+            synchronized (pendingUrls) {
+                pendingUrls.put(request.getResponse(), url);
             }
             return false;
         }
 
+        /**
+         * 磁盘缓存响应的ETag
+         * @return  null, 没有缓存或缓存没有ETag
+         */
+        @Nullable
+        private static String readCachedEtag(@NonNull HttpRequest request) {
+            Map<String, List<String>> cacheHead = request.getResponse().getHeader(true);
+            if (null == cacheHead || !cacheHead.containsKey(EtagIndex.RES_ETAG)) {
+                return null;
+            }
+            return cacheHead.get(EtagIndex.RES_ETAG).get(0);
+        }
+
         /**
          * 注意此处回调所在工作线程
          * @param response  响应
          */
         @Override
         public boolean onPostResponse(@NonNull HttpResponse response) {
+            String url;
+            synchronized (pendingUrls) {
+                url = pendingUrls.remove(response);
+            }
+            if (null != url) {
+                Map<String, List<String>> head = response.getHeader(false);
+                if (null != head && head.containsKey(EtagIndex.RES_ETAG)) {
+                    ETAG_INDEX.put(url, head.get(EtagIndex.RES_ETAG).get(0));
+                }
+            }
             return false;
         }
 
@@ -288,6 +765,25 @@ public class HttpClientBase {
 
     }
 
+    /**
+     * 大集合增量交付请使用此回调，结果集按批次回调
+     * @param <T>
+     */
+    public abstract static class ChunkCallback<T extends Serializable> extends ClientChunkCallback<T> {
+
+        /**
+         * @param chunkSize 每批数量
+         */
+        public ChunkCallback(int chunkSize) {
+            this(null, chunkSize);
+        }
+
+        public ChunkCallback(Object tag, int chunkSize) {
+            super(ERROR_HANDLER, tag, chunkSize);
+        }
+
+    }
+
     /**
      * Sid分页集合使用此回调
      * @param <T>
@@ -302,6 +798,10 @@ public class HttpClientBase {
             super(ERROR_HANDLER, tag);
         }
 
+        protected SidArrayCallback(Object tag, @NonNull Type itemType) {
+            super(ERROR_HANDLER, tag, itemType);
+        }
+
     }
 
     /**
@@ -320,17 +820,35 @@ public class HttpClientBase {
     }
 
     /**
-     * 获取错误提示表
+     * 获取错误提示表，有效期内直接使用内存中的错误表，无IO也无解析；
+     * 过期后内容未变化时由磁盘缓存响应且不再解析
      */
     public void getErrorBook() {
-        this.engine.get(CacheConfig.create(10, TimeUnit.MINUTES, true),
-                generateAPIUrl("config/error_code"), null,
-                new PojoCallback<String>() {
-            @Override
-            public void onSuccess(String data) {
-                HttpErrorBook.update(data);
+        if (HttpErrorBook.isFresh(memoryTtlOf(ERROR_BOOK_CACHE))) {
+            return;
+        }
+        get(Priority.BACKGROUND, ERROR_BOOK_CACHE, generateAPIUrl("config/error_code"), null,
+                new ErrorBookCallback());
+    }
+
+    /**
+     * 错误表在解析线程直接更新，不投递到主线程
+     */
+    private final static class ErrorBookCallback extends CallbackBase<String> {
+
+        private ErrorBookCallback() {
+            super(ERROR_HANDLER, null);
+        }
+
+        @Override
+        public boolean onParseData(String data) {
+            if (null == data) {
+                return false;
             }
-        });
+            HttpErrorBook.update(data);
+            return true;
+        }
+
     }
 
 }
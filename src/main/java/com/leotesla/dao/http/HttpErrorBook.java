@@ -1,14 +1,26 @@
 package com.leotesla.dao.http;
 
-import android.support.v4.util.ArrayMap;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.leotesla.dao.http.data.HttpExecutors;
+import com.leotesla.dao.http.data.SnapshotFile;
 
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
 
 /**
  * 响应错误码对应表
+ * Note: 错误表不可变，更新时在后台线程构建新表后原子替换，查询无锁且不分配对象
+ * 错误表以二进制快照持久化，冷启动时直接载入，服务端内容不变时不再解析和写入
  *
  * @version 1.0
  *
@@ -17,19 +29,106 @@ import java.util.Map;
 
 public class HttpErrorBook {
 
-    private static final Map<Integer, String> BOOK = new ArrayMap<>();
+    // 快照文件格式版本
+    private static final int FILE_VERSION = 1;
+
+    private static final AtomicReference<Table> BOOK = new AtomicReference<>(Table.EMPTY);
+    // 快照文件
+    private static volatile File FILE;
+    // 最近一次取得服务端错误表的时刻，System.nanoTime，尚未取得时为空
+    private static volatile Long CHECKED_AT;
+
+    /**
+     * 载入持久化的错误表快照，运行期间已更新时不覆盖
+     * @param file  快照文件
+     */
+    @WorkerThread
+    static void load(@NonNull File file) {
+        FILE = file;
+        SnapshotFile.read(file, in -> {
+            if (FILE_VERSION != in.readInt()) {
+                return;
+            }
+            long version = in.readLong();
+            int count = in.readInt();
+            int[] codes = new int[count];
+            String[] messages = new String[count];
+            for (int i = 0; i < count; i++) {
+                codes[i] = in.readInt();
+                messages[i] = in.readUTF();
+            }
+            BOOK.compareAndSet(Table.EMPTY, new Table(codes, messages, version));
+        });
+    }
 
     /**
-     * 更新错误表
+     * 更新错误表，新条目覆盖同码的旧条目
+     * Note: 在响应的解析线程调用，不经主线程中转
      * @param data  错误列表
      */
-    static void update(String data) {
+    @WorkerThread
+    static void update(@NonNull String data) {
+        // 以内容校验值作为服务端版本，未变化时跳过解析与写入
+        CRC32 crc = new CRC32();
+        crc.update(data.getBytes(Charset.forName("UTF-8")));
+        long version = crc.getValue();
+        CHECKED_AT = System.nanoTime();
+        if (version == BOOK.get().version) {
+            return;
+        }
         JSONObject errorMap = JSON.parseObject(data);
-        if (null != errorMap) {
-            for (String key : errorMap.keySet()) {
-                BOOK.put(Integer.parseInt(key), errorMap.getString(key));
+        if (null == errorMap || errorMap.isEmpty()) {
+            return;
+        }
+        Map<Integer, String> entries = new TreeMap<>();
+        for (Map.Entry<String, Object> entry : errorMap.entrySet()) {
+            try {
+                entries.put(Integer.parseInt(entry.getKey()),
+                        null == entry.getValue() ? null : entry.getValue().toString());
+            } catch (NumberFormatException ignored) {
+                // 非数字错误码直接忽略
             }
         }
+        Table current, merged;
+        do {
+            current = BOOK.get();
+            merged = current.merge(entries, version);
+        } while (!BOOK.compareAndSet(current, merged));
+        File file = FILE;
+        if (null != file) {
+            // 写入放到后台线程，不占用解析线程
+            Table snapshot = merged;
+            HttpExecutors.background().execute(() -> save(file, snapshot));
+        }
+    }
+
+    @WorkerThread
+    private static void save(@NonNull File file, @NonNull Table table) {
+        SnapshotFile.write(file, out -> {
+            int count = 0;
+            for (String message : table.messages) {
+                if (null != message) count++;
+            }
+            out.writeInt(FILE_VERSION);
+            out.writeLong(table.version);
+            out.writeInt(count);
+            for (int i = 0; i < table.codes.length; i++) {
+                if (null != table.messages[i]) {
+                    out.writeInt(table.codes[i]);
+                    out.writeUTF(table.messages[i]);
+                }
+            }
+        });
+    }
+
+    /**
+     * 内存中的错误表是否在有效期内，只计本次运行期间从服务端取得的内容
+     * @param ttl   有效时长，毫秒
+     */
+    static boolean isFresh(long ttl) {
+        Long checkedAt = CHECKED_AT;
+        return 0 < ttl && null != checkedAt
+                && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkedAt) < ttl;
     }
 
     /**
@@ -38,7 +137,49 @@ public class HttpErrorBook {
      * @return      错误信息
      */
     public static String getErrorMsg(int code, String defaultMsg) {
-        return BOOK.containsKey(code) ? BOOK.get(code) : defaultMsg;
+        Table table = BOOK.get();
+        int index = Arrays.binarySearch(table.codes, code);
+        return index >= 0 ? table.messages[index] : defaultMsg;
+    }
+
+    /**
+     * 按错误码升序排列的不可变错误表
+     */
+    private static final class Table {
+
+        static final Table EMPTY = new Table(new int[0], new String[0], -1);
+
+        final int[] codes;
+        final String[] messages;
+        // 来源内容的校验值，-1表示无
+        final long version;
+
+        Table(int[] codes, String[] messages, long version) {
+            this.codes = codes;
+            this.messages = messages;
+            this.version = version;
+        }
+
+        /**
+         * 与有序的新条目合并为新表
+         */
+        Table merge(Map<Integer, String> entries, long version) {
+            Map<Integer, String> all = new TreeMap<>();
+            for (int i = 0; i < codes.length; i++) {
+                all.put(codes[i], messages[i]);
+            }
+            all.putAll(entries);
+            int[] newCodes = new int[all.size()];
+            String[] newMessages = new String[all.size()];
+            int i = 0;
+            for (Map.Entry<Integer, String> entry : all.entrySet()) {
+                newCodes[i] = entry.getKey();
+                newMessages[i] = entry.getValue();
+                i++;
+            }
+            return new Table(newCodes, newMessages, version);
+        }
+
     }
 
 }
@@ -0,0 +1,270 @@
+package com.leotesla.dao.http;
+
+import android.support.annotation.MainThread;
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.leotesla.dao.http.data.ClientSidArrayCallback;
+import com.leotesla.dao.http.data.Extra;
+import com.leotesla.dao.http.data.Priority;
+import com.leotesla.httpclient.ClientError;
+
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于sid游标的分页器，第N页交付后在后台预取第N+1页
+ * 已载入的页按元素总数限制内存，超出时淘汰距当前页最远的页，淘汰的页保留游标以便重新请求
+ * Note: 所有方法及回调均在主线程
+ *
+ * @version 1.0
+ */
+
+public final class SidPager<T extends Serializable> {
+
+    /**
+     * 按游标请求一页，通常为客户端的分页接口
+     */
+    public interface PageLoader<T extends Serializable> {
+
+        void load(@NonNull String sid, @NonNull ClientSidArrayCallback<T> callback);
+
+    }
+
+    public interface Listener<T extends Serializable> {
+
+        /**
+         * 请求的页已就绪
+         * @param index 页序号，从0开始
+         */
+        void onPage(int index, @NonNull List<T> data, @NonNull Extra extra);
+
+        /**
+         * 请求的页载入失败，预取失败不回调
+         */
+        boolean onError(int index, @NonNull ClientError error);
+
+    }
+
+    // 首页游标
+    private static final String FIRST_SID = "";
+
+    private final PageLoader<T> loader;
+    private final Type itemType;
+    // 已载入页的元素总数上限
+    private final int maxItems;
+    private Listener<T> listener;
+    // 第i项为请求第i页使用的游标
+    private final List<String> cursors = new ArrayList<>();
+    // 已载入的页
+    private final SparseArrayCompat<Page<T>> pages = new SparseArrayCompat<>();
+    // 进行中的请求
+    private final SparseArrayCompat<PageCallback> loading = new SparseArrayCompat<>();
+    private int itemCount;
+    // 当前页与等待交付的页
+    private int current;
+    private int waiting = -1;
+    // 是否已到末页
+    private boolean end;
+
+    /**
+     * @param loader    分页请求
+     * @param itemType  元素类型
+     * @param maxItems  内存中保留的元素总数上限，当前页和预取页总会保留
+     */
+    public SidPager(@NonNull PageLoader<T> loader, @NonNull Type itemType, int maxItems) {
+        this.loader = loader;
+        this.itemType = itemType;
+        this.maxItems = maxItems;
+        this.cursors.add(FIRST_SID);
+    }
+
+    @MainThread
+    public void setListener(Listener<T> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 请求指定页，已载入时立即交付，否则以交互优先级请求
+     * 之前的页未载入时无法得知游标，忽略请求
+     * @param index 页序号，从0开始
+     */
+    @MainThread
+    public void request(int index) {
+        if (index < 0 || index >= cursors.size()) {
+            return;
+        }
+        current = index;
+        Page<T> page = pages.get(index);
+        if (null != page) {
+            waiting = -1;
+            if (null != listener) {
+                listener.onPage(index, page.data, page.extra);
+            }
+            prefetch(index + 1);
+        } else {
+            waiting = index;
+            load(index, Priority.INTERACTIVE);
+        }
+        trim();
+    }
+
+    /**
+     * 清除所有页，下次从首页开始
+     */
+    @MainThread
+    public void reset() {
+        // 进行中的请求以分页器为tag，取消后不再回调
+        HttpClientBase.cancelAll(this);
+        loading.clear();
+        pages.clear();
+        cursors.clear();
+        cursors.add(FIRST_SID);
+        itemCount = 0;
+        current = 0;
+        waiting = -1;
+        end = false;
+    }
+
+    /**
+     * 是否已到末页
+     */
+    public boolean isEnd() {
+        return end;
+    }
+
+    /**
+     * 已知游标的页数，未到末页时包含尚未载入的下一页
+     */
+    public int getKnownPageCount() {
+        return cursors.size();
+    }
+
+    /**
+     * 内存中的页数
+     */
+    public int getCachedPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * 内存中的元素总数
+     */
+    public int getCachedItemCount() {
+        return itemCount;
+    }
+
+    private void prefetch(int index) {
+        if (index < cursors.size() && null == pages.get(index)) {
+            load(index, Priority.PREFETCH);
+        }
+    }
+
+    private void load(int index, @NonNull Priority priority) {
+        PageCallback callback = loading.get(index);
+        if (null != callback) {
+            // 预取中的页被请求时提升优先级
+            callback.raise(priority);
+            return;
+        }
+        callback = new PageCallback(index);
+        callback.prioritize(priority);
+        loading.put(index, callback);
+        loader.load(cursors.get(index), callback);
+    }
+
+    private void onLoaded(int index, @NonNull String sid, @NonNull List<T> data,
+                          @NonNull Extra extra) {
+        loading.remove(index);
+        if (index == cursors.size() - 1 && !end) {
+            // 空页或游标未前进时视为末页
+            if (data.isEmpty() || sid.isEmpty() || sid.equals(cursors.get(index))) {
+                end = true;
+            } else {
+                cursors.add(sid);
+            }
+        }
+        Page<T> previous = pages.get(index);
+        if (null != previous) {
+            itemCount -= previous.data.size();
+        }
+        pages.put(index, new Page<>(data, extra));
+        itemCount += data.size();
+        if (waiting == index) {
+            waiting = -1;
+            if (null != listener) {
+                listener.onPage(index, data, extra);
+            }
+            prefetch(index + 1);
+        }
+        trim();
+    }
+
+    private boolean onFailed(int index, @NonNull ClientError error) {
+        loading.remove(index);
+        if (waiting == index) {
+            waiting = -1;
+            return null != listener && listener.onError(index, error);
+        }
+        // 预取失败静默，请求到该页时重试
+        return true;
+    }
+
+    /**
+     * 超出元素上限时淘汰距当前页最远的页
+     */
+    private void trim() {
+        while (itemCount > maxItems && pages.size() > 0) {
+            int farthest = -1, distance = 1;
+            for (int i = 0; i < pages.size(); i++) {
+                int d = Math.abs(pages.keyAt(i) - current);
+                // 当前页和下一页不淘汰
+                if (pages.keyAt(i) != current + 1 && d >= distance) {
+                    distance = d;
+                    farthest = i;
+                }
+            }
+            if (farthest < 0) {
+                return;
+            }
+            itemCount -= pages.valueAt(farthest).data.size();
+            pages.removeAt(farthest);
+        }
+    }
+
+    private final static class Page<T> {
+
+        private final List<T> data;
+        private final Extra extra;
+
+        private Page(@NonNull List<T> data, @NonNull Extra extra) {
+            this.data = data;
+            this.extra = extra;
+        }
+
+    }
+
+    private final class PageCallback extends HttpClientBase.SidArrayCallback<T> {
+
+        private final int index;
+
+        private PageCallback(int index) {
+            super(SidPager.this, itemType);
+            this.index = index;
+        }
+
+        @Override
+        public void onSuccess(@NonNull String sid, @NonNull List<T> data, @NonNull Extra extra) {
+            onLoaded(index, sid, data, extra);
+        }
+
+        @Override
+        public boolean onError(ClientError error) {
+            return onFailed(index, error);
+        }
+
+    }
+
+}
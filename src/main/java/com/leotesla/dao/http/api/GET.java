@@ -0,0 +1,27 @@
+package com.leotesla.dao.http.api;
+
+import com.leotesla.dao.http.data.Priority;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * GET请求，方法最后一个参数为回调，其余参数为请求参数
+ *
+ * @version 1.0
+ */
+
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.METHOD)
+public @interface GET {
+
+    /**
+     * 相对地址，经generateAPIUrl拼接，每个客户端实例只拼接一次
+     */
+    String value();
+
+    Priority priority() default Priority.NORMAL;
+
+}
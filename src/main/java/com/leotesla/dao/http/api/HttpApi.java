@@ -0,0 +1,24 @@
+package com.leotesla.dao.http.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记接口，编译期生成实现该接口的{@link com.leotesla.dao.http.HttpClientBase}子类
+ * 生成类与接口同包，构造器为(Context, Handler)
+ *
+ * @version 1.0
+ */
+
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface HttpApi {
+
+    /**
+     * 生成类名，默认为接口名加Client
+     */
+    String value() default "";
+
+}
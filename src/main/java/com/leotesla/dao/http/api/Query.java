@@ -0,0 +1,20 @@
+package com.leotesla.dao.http.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 请求参数名，未标注时使用参数名；参数值为null时不提交
+ *
+ * @version 1.0
+ */
+
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+public @interface Query {
+
+    String value();
+
+}
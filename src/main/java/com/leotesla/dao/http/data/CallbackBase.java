@@ -3,19 +3,29 @@ package com.leotesla.dao.http.data;
 import android.os.Handler;
 import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.VisibleForTesting;
 import android.support.annotation.WorkerThread;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONException;
-import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.ParserConfig;
 import com.leotesla.httpclient.ClientError;
 import com.leotesla.httpclient.ClientErrorHandler;
 import com.leotesla.httpclient.HandlerCallback;
 import com.leotesla.httpclient.internal.HttpRequest;
 import com.leotesla.httpclient.internal.HttpResponse;
 
+import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.MissingFormatArgumentException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 数据响应基类
@@ -27,8 +37,58 @@ import java.util.MissingFormatArgumentException;
 
 public abstract class CallbackBase<T extends Serializable> extends HandlerCallback<T> {
 
+    // 回调类到数据类型的解析结果，回调类在编译期确定，数量有限不做淘汰
+    private static final ConcurrentHashMap<Class<?>, Type> DATA_TYPES = new ConcurrentHashMap<>();
+    // 未声明泛型参数的回调类占位，不会作为泛型参数出现
+    private static final Type NO_DATA_TYPE = void.class;
+
     // 错误处理器
     private final ClientErrorHandler errorHandler;
+    // 是否指定了回调Handler
+    private final boolean ownHandler;
+    // 指定的回调Handler与标识，用于批量取消
+    private final Handler callbackHandler;
+    private final Object tag;
+    // 未指定回调Handler时由客户端路由的投递Handler
+    private Handler deliveryHandler;
+    // 数据区泛型类型，用于流式反序列化；首次使用时解析或由生成的客户端绑定
+    private volatile Type dataType;
+    // 请求合并状态，仅发起者持有
+    private SingleFlight flight;
+    private Object flightKey;
+    private List<CallbackBase<?>> followers;
+    private boolean settled;
+    // 解析结果写入的内存缓存
+    private MemoryCache memoryCache;
+    private Object memoryKey;
+    private long memoryTtl;
+    // ETag索引与本请求的资源标识
+    private EtagIndex etagIndex;
+    private String etagResource;
+    // 未修改响应无法还原时重新完整请求，只重试一次
+    private Runnable refetch;
+    // 请求优先级
+    private volatile Priority priority = Priority.NORMAL;
+    // 占用网络槽位的调度器
+    private volatile RequestScheduler scheduler;
+    // 登记的标识表
+    private volatile TagRegistry registry;
+    // 是否已被取消
+    private volatile boolean canceled;
+    // 耗时记录，首次投递后汇总
+    private volatile RequestTrace trace;
+    // 启用并行解码的响应体字符数，0为关闭
+    private int parallelThreshold;
+    // 并行解码得到的结果集，由readList取走
+    private List<T> presliced;
+    // 解析线程
+    private volatile ParseExecutor parser;
+    // 引擎按解析结果决定是否写入磁盘缓存
+    private volatile boolean engineCached;
+    // 读取信封期间暂存的投递，信封完整读完后才放行，仅解析线程访问
+    private List<Runnable> held;
+    // 正在解析的响应体，供数据区按原文记录附加字段，仅解析线程访问
+    private String body;
 
     public CallbackBase(ClientErrorHandler errorHandler, Object tag) {
         this(null, errorHandler, tag);
@@ -38,41 +98,240 @@ public abstract class CallbackBase<T extends Serializable> extends HandlerCallba
         this(callbackHandler, errorHandler, null);
     }
 
-    @SuppressWarnings("unchecked")
     public CallbackBase(Handler callbackHandler, ClientErrorHandler errorHandler, Object tag) {
+        this(callbackHandler, errorHandler, tag, null);
+    }
+
+    /**
+     * @param dataType  数据区类型，为空时在首次使用时从子类泛型参数解析；泛型参数为类型变量时需显式指定
+     */
+    protected CallbackBase(Handler callbackHandler, ClientErrorHandler errorHandler, Object tag,
+                           Type dataType) {
         super(callbackHandler, tag);
         this.errorHandler = errorHandler;
+        this.ownHandler = null != callbackHandler;
+        this.callbackHandler = callbackHandler;
+        this.tag = tag;
+        this.dataType = dataType;
+    }
+
+    /**
+     * 数据区类型，未指定或绑定时在首次使用时从子类泛型参数解析，同一回调类只解析一次
+     * @return  null, 未声明泛型参数
+     */
+    protected final Type getDataType() {
+        Type type = this.dataType;
+        if (null == type) {
+            type = resolveDataType(getClass());
+            this.dataType = type;
+        }
+        return type;
+    }
+
+    /**
+     * 绑定编译期已知的数据类型，省去泛型反射解析
+     * 由注解生成的客户端在发起请求前调用，类型已确定时忽略
+     * @param dataType  数据区类型，须与回调声明的泛型参数一致
+     */
+    public final void bindDataType(@NonNull Type dataType) {
+        if (null == this.dataType) {
+            this.dataType = dataType;
+        }
     }
 
     @Override
     @WorkerThread
     public final boolean onHttpSuccess(@NonNull HttpResponse response) {
-        ClientError clientError = null;
-        try {
-            JSONObject jsonObject = JSON.parseObject(response.getContent());
-            if (null != jsonObject && jsonObject.containsKey("error")) {
-                // 解析数据状态码
-                int code = jsonObject.getIntValue("error");
-                if (code == 0) {
-                    // 成功
-                    if (jsonObject.containsKey("data")) {
-                        // 解析数据区
-                        if (!onParseData(jsonObject.getString("data"))) {
-                            clientError = new ClientError(ClientError.EXCEPTION_CLIENT,
-                                    ClientError.DATA_EXCEPTION, "Not match parse format");
+        if (refetchNotModified(response)) {
+            return false;
+        }
+        mark(RequestTrace.RESPONSE);
+        detach();
+        List<CallbackBase<?>> followers = settle();
+        // 返回值决定引擎是否缓存响应时，总是就地解析并如实返回
+        if (null == followers && !this.engineCached) {
+            if (this.canceled) {
+                // 无人接收结果，跳过解析
+                finishTrace(RequestTrace.Outcome.DROPPED);
+                return false;
+            }
+            Handler target = this.ownHandler ? this.callbackHandler : this.deliveryHandler;
+            if (target instanceof Liveness) {
+                Liveness liveness = (Liveness) target;
+                switch (liveness.getLiveness()) {
+                    case Liveness.DEAD:
+                        finishTrace(RequestTrace.Outcome.DROPPED);
+                        return false;
+                    case Liveness.SUSPENDED:
+                        // 挂起期间不解析，唤醒后再到后台解析；推迟已满时就地解析
+                        if (liveness.whenAlive(new DeferredParse(response))) {
+                            return true;
                         }
-                    } else {
-                        clientError = new ClientError(ClientError.EXCEPTION_CLIENT,
-                                ClientError.DATA_EXCEPTION, "Missing format specifier 'data'");
-                    }
-                } else {
-                    // 其他错误
-                    clientError = new ClientError(
-                            ClientError.EXCEPTION_SERVER, code, jsonObject.getString("data"));
+                        break;
                 }
+            }
+        }
+        ParseExecutor parser = this.parser;
+        if (null != parser && parser.isEnabled() && !ParseExecutor.isParseThread()
+                && !this.engineCached) {
+            // 响应体已由引擎读为字符串，解析交给解析线程；排队已满时就地解析
+            // 引擎按返回值缓存响应时不交出，就地解析以如实返回
+            if (parser.offer(this.priority, () -> completeLater(response, followers))) {
+                return true;
+            }
+        }
+        return complete(response, followers);
+    }
+
+    /**
+     * 投递Handler挂起期间推迟的解析，持有完整的响应直到恢复或放弃
+     */
+    private final class DeferredParse implements Liveness.Deferred {
+
+        private final HttpResponse response;
+
+        private DeferredParse(@NonNull HttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void resume() {
+            Runnable task = () -> completeLater(this.response, null);
+            ParseExecutor parser = CallbackBase.this.parser;
+            if (null != parser) {
+                parser.execute(CallbackBase.this.priority, task);
             } else {
+                HttpExecutors.background().execute(task);
+            }
+        }
+
+        @Override
+        public void drop() {
+            CallbackBase.this.canceled = true;
+            finishTrace(RequestTrace.Outcome.DROPPED);
+        }
+
+    }
+
+    /**
+     * 在解析线程中完成，排队期间被取消且无跟随者时不再解析
+     * Note: 解析线程上没有引擎兜底，任何异常都转为错误分发，不丢失回调
+     */
+    @WorkerThread
+    private void completeLater(@NonNull HttpResponse response,
+                               @Nullable List<CallbackBase<?>> followers) {
+        if (null == followers && this.canceled) {
+            finishTrace(RequestTrace.Outcome.DROPPED);
+            return;
+        }
+        try {
+            complete(response, followers);
+        } catch (Throwable e) {
+            ClientError error = new ClientError(ClientError.EXCEPTION_CLIENT,
+                    ClientError.DATA_EXCEPTION, e.getClass().getSimpleName() + ": "
+                    + e.getLocalizedMessage());
+            dispatchError(error);
+            if (null != followers) {
+                for (CallbackBase<?> follower : followers) {
+                    follower.detach();
+                    follower.dispatchError(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * 解析或复用结果，写入缓存后分发给自身和跟随者
+     */
+    @WorkerThread
+    private boolean complete(@NonNull HttpResponse response,
+                             @Nullable List<CallbackBase<?>> followers) {
+        boolean success;
+        Parsed parsed = findNotModified(response);
+        if (null != parsed && restoreAs(parsed, RequestTrace.Source.NOT_MODIFIED)) {
+            // 未修改，跳过解析
+            success = true;
+        } else {
+            List<Runnable> results = parseResponse(response.getContent());
+            success = null != results;
+            // 只有结果会被复用时才生成快照；快照在投递前生成，回调线程的修改不影响快照
+            String etag = success && null != this.etagIndex ? readEtag(response) : null;
+            parsed = success && (null != followers || null != this.memoryCache
+                    || null != etag) ? snapshot() : null;
+            if (null != parsed && null != etag) {
+                this.etagIndex.remember(this.etagResource, etag, parsed);
+            }
+            if (success) {
+                for (Runnable action : results) {
+                    deliver(action);
+                }
+            }
+        }
+        if (null != parsed && null != this.memoryCache) {
+            this.memoryCache.store(this.memoryKey, parsed, this.memoryTtl);
+        }
+        if (null != followers) {
+            // 合并的请求优先复用本次解析结果
+            for (CallbackBase<?> follower : followers) {
+                follower.detach();
+                try {
+                    if (null == parsed || !follower.reuse(parsed)) {
+                        follower.onHttpSuccess(response);
+                    }
+                } catch (RuntimeException e) {
+                    // 跟随者的异常只影响其自身
+                    follower.dispatchError(new ClientError(e, ClientError.EXCEPTION_CLIENT,
+                            ClientError.DATA_EXCEPTION, e.getClass().getSimpleName() + ": "
+                            + e.getLocalizedMessage()));
+                }
+            }
+        }
+        return success;
+    }
+
+    /**
+     * 解析响应体并投递，不经引擎、缓存与合并请求，供单元测试直接驱动解析与投递
+     * @param content   响应体
+     * @return          false, 解析出错，已分发错误
+     */
+    @VisibleForTesting
+    @WorkerThread
+    final boolean receive(@Nullable String content) {
+        List<Runnable> results = parseResponse(content);
+        if (null == results) {
+            return false;
+        }
+        for (Runnable action : results) {
+            deliver(action);
+        }
+        return true;
+    }
+
+    /**
+     * 解析响应，出错时分发错误
+     * @return  解析得到的待投递结果，出错时为null
+     */
+    @Nullable
+    @WorkerThread
+    private List<Runnable> parseResponse(@Nullable String content) {
+        ClientError clientError;
+        List<Runnable> held = new ArrayList<>(2);
+        mark(RequestTrace.PARSE_START);
+        this.held = held;
+        this.body = content;
+        try {
+            RequestTrace trace = this.trace;
+            if (null != trace && null != content) {
+                trace.setSize(content.length());
+            }
+            if (null == content || content.isEmpty()) {
                 clientError = new ClientError(
                         ClientError.EXCEPTION_SERVER, ClientError.DATA_EXCEPTION, "null data");
+            } else {
+                Reader source = 0 < this.parallelThreshold
+                        && this.parallelThreshold <= content.length()
+                        ? presplit(content) : new StringReader(content);
+                clientError = readEnvelope(new ResponseReader(source), content);
             }
         } catch (NumberFormatException e) {
             clientError = new ClientError(e, ClientError.EXCEPTION_CLIENT,
@@ -84,24 +343,504 @@ public abstract class CallbackBase<T extends Serializable> extends HandlerCallba
             clientError = new ClientError(e, ClientError.EXCEPTION_CLIENT,
                     ClientError.DATA_EXCEPTION,
                     "MissingFormatArgumentException: " + e.getLocalizedMessage());
+        } finally {
+            this.presliced = null;
+            this.held = null;
+            this.body = null;
         }
+        mark(RequestTrace.PARSE_END);
         if (null != clientError) {
+            // 出错时丢弃已暂存的结果，只投递错误
             dispatchError(clientError);
+            return null;
         }
-        return null == clientError;
+        return held;
+    }
+
+    /**
+     * 正在解析的响应体，解析之外为null
+     */
+    @Nullable
+    final String body() {
+        return this.body;
+    }
+
+    /**
+     * 并行解码结果集，结果暂存待readList取走
+     * @param content   响应体
+     * @return          结果集替换为空数组后的响应体读取器，未找到结果集时读取原响应体
+     */
+    @NonNull
+    @WorkerThread
+    private Reader presplit(@NonNull String content) throws JSONException {
+        Type type = getDataType();
+        int[] span = null == type ? null : ParallelDecoder.locate(content, resultsLayout());
+        if (null == span) {
+            return new StringReader(content);
+        }
+        this.presliced = ParallelDecoder.decode(content, span[0], span[1], type);
+
+        return RangeReader.replace(content, span[0], span[1], "[]");
+    }
+
+    /**
+     * 结果集在data区的位置，取值见{@link ParallelDecoder}
+     */
+    int resultsLayout() {
+        return ParallelDecoder.LAYOUT_NONE;
+    }
+
+    /**
+     * 单次流式读取响应信封，不构建中间树也不二次序列化data区
+     * Note: 解析期间的投递暂存到信封读完后放行，信封结构有误时只投递错误
+     *
+     * @param reader    响应读取器
+     * @param content   响应体
+     * @return          错误信息，成功时为null
+     */
+    @WorkerThread
+    private ClientError readEnvelope(@NonNull ResponseReader reader, @NonNull String content)
+            throws JSONException {
+        Envelope envelope = Envelope.read(reader, content, new Envelope.DataParser() {
+            @Override
+            public boolean parse(@NonNull ResponseReader reader) throws JSONException {
+                return onParseData(reader);
+            }
+
+            @Override
+            public boolean parse(String data) throws JSONException {
+                return onParseData(data);
+            }
+        });
+        if (null == envelope.code) {
+            return new ClientError(
+                    ClientError.EXCEPTION_SERVER, ClientError.DATA_EXCEPTION, "null data");
+        }
+        if (0 != envelope.code) {
+            // 其他错误
+            return new ClientError(ClientError.EXCEPTION_SERVER, envelope.code, envelope.message);
+        }
+        if (!envelope.hasData) {
+            return new ClientError(ClientError.EXCEPTION_CLIENT,
+                    ClientError.DATA_EXCEPTION, "Missing format specifier 'data'");
+        }
+        return envelope.matched ? null : new ClientError(ClientError.EXCEPTION_CLIENT,
+                ClientError.DATA_EXCEPTION, "Not match parse format");
     }
 
     @WorkerThread
     @Override
     public final void onHttpFailed(@NonNull HttpResponse response) {
-        dispatchError(this.errorHandler.onHttpFailed(response));
+        if (refetchNotModified(response)) {
+            return;
+        }
+        mark(RequestTrace.RESPONSE);
+        detach();
+        List<CallbackBase<?>> followers = settle();
+        // 未修改的响应可能被引擎视为失败
+        Parsed parsed = findNotModified(response);
+        boolean restored = null != parsed && restoreAs(parsed, RequestTrace.Source.NOT_MODIFIED);
+        if (!restored) {
+            dispatchError(this.errorHandler.onHttpFailed(response));
+        }
+        if (null != followers) {
+            for (CallbackBase<?> follower : followers) {
+                follower.detach();
+                if (!restored || !follower.reuse(parsed)) {
+                    follower.onHttpFailed(response);
+                }
+            }
+        }
     }
 
     @WorkerThread
     @Override
     public final void onHttpCanceled(@NonNull HttpRequest request) {
+        mark(RequestTrace.RESPONSE);
+        detach();
+        List<CallbackBase<?>> followers = settle();
         dispatchError(new ClientError(
                 ClientError.EXCEPTION_CLIENT, ClientError.NET_EXCEPTION, "CanceledException"));
+        if (null != followers) {
+            for (CallbackBase<?> follower : followers) {
+                follower.onHttpCanceled(request);
+            }
+        }
+    }
+
+    /**
+     * 作为合并请求的发起者
+     */
+    final void lead(@NonNull SingleFlight flight, @NonNull Object key) {
+        this.flight = flight;
+        this.flightKey = key;
+    }
+
+    /**
+     * 请求带磁盘缓存策略，引擎按{@link #onHttpSuccess(HttpResponse)}的返回值决定是否缓存响应
+     * 此后响应总在网络线程就地解析，不因取消或投递Handler挂起、退出而跳过或推迟
+     */
+    public final void cacheByEngine() {
+        this.engineCached = true;
+    }
+
+    /**
+     * 指定解析线程，响应在网络线程收完后交给解析线程解析
+     */
+    public final void parseOn(@NonNull ParseExecutor parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * 开启大结果集并行解码，需在发起请求前调用
+     * 开启后响应体先完整读入再解析，结果集在多个线程上分段解码；仅集合类回调的非增量模式生效
+     * @param threshold 启用并行解码的响应体字符数，0为关闭
+     */
+    public final void decodeInParallel(int threshold) {
+        this.parallelThreshold = Math.max(0, threshold);
+    }
+
+    /**
+     * 设置请求优先级，需在发起请求前调用
+     */
+    public final void prioritize(@NonNull Priority priority) {
+        this.priority = priority;
+    }
+
+    @NonNull
+    public final Priority getPriority() {
+        return this.priority;
+    }
+
+    /**
+     * 提升优先级，排队中的请求随之移到更高优先级道
+     * 合并到本请求的跟随者优先级更高时也会调用
+     */
+    public final void raise(@NonNull Priority priority) {
+        if (priority.ordinal() >= this.priority.ordinal()) {
+            return;
+        }
+        this.priority = priority;
+        RequestScheduler scheduler = this.scheduler;
+        if (null != scheduler) {
+            scheduler.promote(this, priority);
+        }
+    }
+
+    /**
+     * 由调度器发起，结束时需释放槽位
+     */
+    final void occupy(@NonNull RequestScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 网络交换结束，释放槽位并注销标识，解析不占用槽位
+     */
+    private void detach() {
+        RequestScheduler scheduler = this.scheduler;
+        if (null != scheduler) {
+            this.scheduler = null;
+            scheduler.release(this);
+        }
+        TagRegistry registry = this.registry;
+        if (null != registry) {
+            this.registry = null;
+            registry.unregister(this);
+        }
+    }
+
+    /**
+     * 批量取消使用的标识：tag和投递Handler
+     */
+    @NonNull
+    final Object[] cancelKeys() {
+        Handler handler = this.ownHandler ? this.callbackHandler : this.deliveryHandler;
+        if (null == this.tag) {
+            return null == handler ? new Object[0] : new Object[]{handler};
+        }
+        return null == handler ? new Object[]{this.tag} : new Object[]{this.tag, handler};
+    }
+
+    final void registerTo(@NonNull TagRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * 取消请求，尚未发起的不再发起，已发起的不再解析和回调
+     * Note: 仍有合并的跟随者时请求照常进行，只是不再投递给自身
+     */
+    final void cancel() {
+        this.canceled = true;
+        List<CallbackBase<?>> followers = settle();
+        RequestScheduler scheduler = this.scheduler;
+        if (null == followers && null != scheduler) {
+            // 排队中的不再发起；已发起的结果无人接收，立即释放槽位，引擎回调时不再重复释放
+            this.scheduler = null;
+            if (!scheduler.remove(this)) {
+                scheduler.release(this);
+            }
+        }
+    }
+
+    public final boolean isCanceled() {
+        return this.canceled;
+    }
+
+    /**
+     * 未指定回调Handler时，结果投递到发起请求的客户端Handler
+     */
+    public final void routeTo(@NonNull Handler handler) {
+        if (!this.ownHandler) {
+            this.deliveryHandler = handler;
+        }
+    }
+
+    /**
+     * 投递到回调线程，解析期间的投递在信封读完后放行
+     */
+    protected final void deliver(@NonNull Runnable action) {
+        List<Runnable> held = this.held;
+        if (null != held) {
+            held.add(action);
+            return;
+        }
+        deliverNow(action);
+    }
+
+    /**
+     * 立即投递，不等待信封读完，用于增量交付
+     */
+    final void deliverNow(@NonNull Runnable action) {
+        if (this.canceled) {
+            finishTrace(RequestTrace.Outcome.DROPPED);
+            return;
+        }
+        Runnable task = action;
+        RequestTrace trace = this.trace;
+        if (null != trace) {
+            // 仅首次投递计入统计，解析结束以首次投递为准
+            this.trace = null;
+            if (0 != trace.getTime(RequestTrace.PARSE_START)
+                    && 0 == trace.getTime(RequestTrace.PARSE_END)) {
+                trace.mark(RequestTrace.PARSE_END);
+            }
+            task = () -> {
+                trace.mark(RequestTrace.DELIVERED);
+                try {
+                    action.run();
+                } finally {
+                    trace.report();
+                }
+            };
+        }
+        Handler target = this.deliveryHandler;
+        if (null == target) {
+            post(task);
+            return;
+        }
+        Runnable delivery = task;
+        target.post(() -> {
+            try {
+                delivery.run();
+            } catch (Exception e) {
+                onPostActionError(e);
+            }
+        });
+    }
+
+    /**
+     * 记录本请求各阶段耗时，首次投递时汇总到统计
+     * @param url   请求地址
+     */
+    public final void traceTo(@NonNull RequestMetrics metrics, @NonNull String url) {
+        this.trace = metrics.start(url);
+    }
+
+    final void mark(int phase) {
+        RequestTrace trace = this.trace;
+        if (null != trace) {
+            trace.mark(phase);
+        }
+    }
+
+    final void traceSource(@NonNull RequestTrace.Source source) {
+        RequestTrace trace = this.trace;
+        if (null != trace) {
+            trace.setSource(source);
+        }
+    }
+
+    /**
+     * 以快照投递并标记结果来源，在当前线程复制主数据
+     * @return  false, 结构不兼容，需要自行解析
+     */
+    @WorkerThread
+    final boolean restoreAs(@NonNull Parsed parsed, @NonNull RequestTrace.Source source) {
+        if (!accepts(parsed)) {
+            return false;
+        }
+        restoreAs(parsed, parsed.copy(), source);
+        return true;
+    }
+
+    /**
+     * 以已复制好的主数据投递并标记结果来源
+     * @param entity    快照主数据的独立副本
+     */
+    final void restoreAs(@NonNull Parsed parsed, @Nullable Object entity,
+                         @NonNull RequestTrace.Source source) {
+        traceSource(source);
+        restore(parsed, entity);
+    }
+
+    /**
+     * 以快照的独立副本投递，不改变结果来源，供合并的请求复用
+     * @return  false, 结构不兼容，需要自行解析
+     */
+    @WorkerThread
+    final boolean reuse(@NonNull Parsed parsed) {
+        if (!accepts(parsed)) {
+            return false;
+        }
+        restore(parsed, parsed.copy());
+        return true;
+    }
+
+    /**
+     * 不经投递结束记录
+     */
+    private void finishTrace(@NonNull RequestTrace.Outcome outcome) {
+        RequestTrace trace = this.trace;
+        if (null != trace) {
+            this.trace = null;
+            trace.setOutcome(outcome);
+            trace.report();
+        }
+    }
+
+    /**
+     * 解析成功后将结果写入内存缓存
+     * @param ttl   有效时长，毫秒，不大于0时不写入
+     */
+    public final void cacheTo(@NonNull MemoryCache cache, @NonNull Object key, long ttl) {
+        this.memoryCache = 0 < ttl ? cache : null;
+        this.memoryKey = key;
+        this.memoryTtl = ttl;
+    }
+
+    /**
+     * 使用ETag索引，服务端返回未修改时直接投递上次的解析结果
+     * @param resource  资源标识，需包含地址与参数
+     * @param refetch   未修改响应既无上次的解析结果也无缓存的响应体时，不带ETag重新发起本请求
+     */
+    public final void trackEtag(@NonNull EtagIndex index, @NonNull String resource,
+                                @NonNull Runnable refetch) {
+        this.etagIndex = index;
+        this.etagResource = resource;
+        this.refetch = refetch;
+    }
+
+    /**
+     * 未修改响应无法还原结果时重新完整请求，仍占用网络槽位，合并的跟随者继续等待
+     * @return  true, 已重新请求，忽略本次响应
+     */
+    @WorkerThread
+    private boolean refetchNotModified(@NonNull HttpResponse response) {
+        Runnable refetch = this.refetch;
+        if (null == refetch || EtagIndex.NOT_MODIFIED != response.getStatusCode()) {
+            return false;
+        }
+        String content = response.getContent();
+        if (null != content && !content.isEmpty() || null != findNotModified(response)) {
+            return false;
+        }
+        this.refetch = null;
+        refetch.run();
+        return true;
+    }
+
+    /**
+     * 未修改响应对应的上次解析结果
+     */
+    @Nullable
+    private Parsed findNotModified(@NonNull HttpResponse response) {
+        if (null == this.etagIndex || EtagIndex.NOT_MODIFIED != response.getStatusCode()) {
+            return null;
+        }
+        String etag = readEtag(response);
+        return null == etag ? null
+                : this.etagIndex.find(this.etagResource, getDataType(), etag);
+    }
+
+    /**
+     * 读取响应中的ETag
+     */
+    @Nullable
+    private static String readEtag(@NonNull HttpResponse response) {
+        Map<String, List<String>> headers = response.getHeader(false);
+        if (null != headers) {
+            List<String> values = headers.get(EtagIndex.RES_ETAG);
+            if (null != values && !values.isEmpty()) {
+                return values.get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 附加跟随者，发起者已结束时返回false
+     */
+    final synchronized boolean attach(@NonNull CallbackBase<?> follower) {
+        if (this.settled) {
+            return false;
+        }
+        if (null == this.followers) {
+            this.followers = new ArrayList<>(2);
+        }
+        this.followers.add(follower);
+        return true;
+    }
+
+    /**
+     * 结束合并，返回需要转发结果的跟随者
+     */
+    @Nullable
+    private List<CallbackBase<?>> settle() {
+        if (null == this.flight) {
+            return null;
+        }
+        this.flight.settle(this.flightKey, this);
+        synchronized (this) {
+            this.settled = true;
+            return this.followers;
+        }
+    }
+
+    /**
+     * 本次成功解析的结果快照
+     * @return  null, 不支持复用
+     */
+    @Nullable
+    @WorkerThread
+    Parsed snapshot() {
+        return null;
+    }
+
+    /**
+     * 快照是否可由本回调复用
+     * @param parsed    其他回调的解析结果
+     */
+    boolean accepts(@NonNull Parsed parsed) {
+        return false;
+    }
+
+    /**
+     * 以快照投递结果到自身Handler，只在{@link #accepts(Parsed)}为true时调用
+     * @param parsed    其他回调的解析结果
+     * @param entity    主数据的独立副本，归本回调所有
+     */
+    void restore(@NonNull Parsed parsed, @Nullable Object entity) {
     }
 
     @Override
@@ -120,14 +859,35 @@ public abstract class CallbackBase<T extends Serializable> extends HandlerCallba
      */
     @WorkerThread
     private void dispatchError(@NonNull ClientError error) {
-        if (!this.errorHandler.onDispatchError(error)) {
-            post(() -> {
+        if (this.canceled) {
+            finishTrace(RequestTrace.Outcome.DROPPED);
+            return;
+        }
+        RequestTrace trace = this.trace;
+        if (null != trace) {
+            trace.setOutcome(RequestTrace.Outcome.FAILED);
+        }
+        if (this.errorHandler.onDispatchError(error)) {
+            // 已由全局处理，不再投递
+            finishTrace(RequestTrace.Outcome.FAILED);
+        } else {
+            deliver(() -> {
                 if (onError(error)) error.closed();
                 this.errorHandler.onPostError(error);
             });
         }
     }
 
+    /**
+     * 流式解析数据区，读取器当前位于data值处，实现必须完整消费该值
+     * 默认回退到字符串解析
+     * @param reader 响应读取器
+     */
+    @WorkerThread
+    protected boolean onParseData(@NonNull ResponseReader reader) throws JSONException {
+        return onParseData(Envelope.toText(reader.readObject()));
+    }
+
     /**
      * 解析数据
      * @param data 数据区字符串
@@ -136,6 +896,30 @@ public abstract class CallbackBase<T extends Serializable> extends HandlerCallba
     @WorkerThread
     public abstract boolean onParseData(String data) throws JSONException;
 
+    /**
+     * 逐个元素读取集合
+     * @param reader 响应读取器
+     */
+    @WorkerThread
+    protected final List<T> readList(@NonNull ResponseReader reader) throws JSONException {
+        List<T> presliced = this.presliced;
+        if (null != presliced) {
+            // 结果集已并行解码，跳过占位的空数组
+            this.presliced = null;
+            reader.startArray();
+            reader.endArray();
+            return presliced;
+        }
+        Type itemType = getDataType();
+        List<T> list = new ArrayList<>();
+        reader.startArray();
+        while (reader.hasNext()) {
+            list.add(reader.readObject(itemType));
+        }
+        reader.endArray();
+        return list;
+    }
+
     /**
      * 客户端错误响应
      * @param error 错误信息
@@ -146,4 +930,57 @@ public abstract class CallbackBase<T extends Serializable> extends HandlerCallba
         return false;
     }
 
+    /**
+     * 回调类的数据类型，每个回调类只解析一次，首次解析时同时构建反序列化器
+     * @param clazz 回调类型
+     * @return      泛型类型，未声明时为null
+     */
+    static Type resolveDataType(Class<?> clazz) {
+        Type type = DATA_TYPES.get(clazz);
+        if (null == type) {
+            type = findDataType(clazz);
+            if (null != type) {
+                prepare(type);
+            }
+            DATA_TYPES.putIfAbsent(clazz, null == type ? NO_DATA_TYPE : type);
+            return type;
+        }
+
+        return NO_DATA_TYPE == type ? null : type;
+    }
+
+    /**
+     * 构建数据类型及其泛型参数的反序列化器，由fastjson全局缓存
+     * 参数化类型的元素反序列化器在解析时才会构建，需要逐个参数预热
+     * @param type  数据类型
+     */
+    public static void prepare(@NonNull Type type) {
+        if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                prepare(argument);
+            }
+            type = ((ParameterizedType) type).getRawType();
+        }
+        if (type instanceof Class) {
+            ParserConfig.getGlobalInstance().getDeserializer(type);
+        }
+    }
+
+    /**
+     * 沿继承链查找第一个具体的数据泛型参数
+     */
+    private static Type findDataType(Class<?> clazz) {
+        while (null != clazz && CallbackBase.class != clazz) {
+            Type superType = clazz.getGenericSuperclass();
+            if (superType instanceof ParameterizedType) {
+                Type argument = ((ParameterizedType) superType).getActualTypeArguments()[0];
+                if (!(argument instanceof TypeVariable)) {
+                    return argument;
+                }
+            }
+            clazz = clazz.getSuperclass();
+        }
+        return null;
+    }
+
 }
@@ -3,12 +3,14 @@ package com.leotesla.dao.http.data;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONException;
-import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.JSONToken;
 import com.leotesla.httpclient.ClientErrorHandler;
 
 import java.io.Serializable;
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.MissingFormatArgumentException;
 
@@ -23,44 +25,183 @@ import java.util.MissingFormatArgumentException;
 public abstract class ClientArrayCallback<T extends Serializable> extends CallbackBase<T> {
 
     private List<T> entity;
-    private String extra = "";
+    private Extra extra = Extra.NONE;
+    // 分批交付大小，大于0时开启增量交付模式
+    private final int chunkSize;
 
     public ClientArrayCallback(ClientErrorHandler errorHandler, Object tag) {
+        this(errorHandler, tag, 0);
+    }
+
+    /**
+     * 增量交付模式请使用{@link ClientChunkCallback}
+     * @param chunkSize 分批交付大小，大于0时结果集逐批回调{@link #onChunk(List)}，
+     *                  最后回调{@link #onComplete(Extra)}，不再回调onSuccess
+     */
+    ClientArrayCallback(ClientErrorHandler errorHandler, Object tag, int chunkSize) {
         super(errorHandler, tag);
+        this.chunkSize = chunkSize;
     }
 
     @Override
-    public final boolean onParseData(String data) throws JSONException, NumberFormatException,
-            MissingFormatArgumentException {
-        if (null == parsable) {
+    protected final boolean onParseData(@NonNull ResponseReader reader) throws JSONException,
+            NumberFormatException, MissingFormatArgumentException {
+        return parseData(reader, null);
+    }
+
+    /**
+     * @param data  数据区文本，从响应体直接读取时为null
+     */
+    private boolean parseData(@NonNull ResponseReader reader, @Nullable String data) throws JSONException,
+            NumberFormatException, MissingFormatArgumentException {
+        if (null == getDataType()) {
             throw new RuntimeException("泛型参数不能为空");
         }
-        Object object = JSON.parse(data);
-
-        if (object instanceof JSONObject) {
-            JSONObject jsonObject = (JSONObject) object;
-            if (jsonObject.containsKey("results")) {
-                entity = parsable.parseList(jsonObject.getString("results"));
-                jsonObject.remove("results");
-                extra = jsonObject.toJSONString();
-            } else {
+        boolean parsed = false;
+        extra = Extra.NONE;
+        int token = reader.peekValue();
+        if (JSONToken.LBRACE == token) {
+            // 结果集之外的字段为额外信息，读取时跳过，按原文记录
+            boolean remains = false;
+            reader.startObject();
+            while (reader.hasNext()) {
+                String key = reader.readString();
+                if ("results".equals(key)) {
+                    parsed = readResults(reader);
+                } else {
+                    reader.skipValue();
+                    remains = true;
+                }
+            }
+            reader.endObject();
+            if (!parsed) {
                 throw new MissingFormatArgumentException("results");
             }
+            if (!remains) {
+                extra = Extra.EMPTY;
+            } else {
+                extra = null != data ? Extra.ofData(data, "results")
+                        : Extra.ofBody(body(), "results");
+            }
+        } else if (JSONToken.LBRACKET == token) {
+            parsed = readResults(reader);
+        } else {
+            reader.readObject();
+        }
+        if (parsed) {
+            if (0 < chunkSize) {
+                deliver(() -> onComplete(extra));
+            } else {
+                deliver(() -> onSuccess(entity, extra));
+            }
+        }
+
+        return parsed;
+    }
+
+    @Override
+    final int resultsLayout() {
+        // 增量模式边读边交付，不做并行解码
+        return 0 < chunkSize ? ParallelDecoder.LAYOUT_NONE : ParallelDecoder.LAYOUT_NESTED_OR_BARE;
+    }
+
+    @Override
+    final Parsed snapshot() {
+        // 增量模式不持有完整集合
+        return 0 < chunkSize ? null : new Parsed(ClientArrayCallback.class, getDataType(),
+                entity, true, null, extra);
+    }
+
+    @Override
+    final boolean accepts(@NonNull Parsed parsed) {
+        return parsed.matches(ClientArrayCallback.class, getDataType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    final void restore(@NonNull Parsed parsed, Object entity) {
+        // 集合与元素都是独立副本
+        List<T> copy = (List<T>) entity;
+        if (0 < chunkSize) {
+            deliver(() -> onChunk(copy));
+            deliver(() -> onComplete(parsed.extra));
         } else {
-            entity = parsable.parseList(data);
+            this.entity = copy;
+            this.extra = parsed.extra;
+            deliver(() -> onSuccess(this.entity, this.extra));
+        }
+    }
+
+    /**
+     * 读取结果集，增量模式下每满一批即投递，工作线程不持有完整集合
+     */
+    private boolean readResults(@NonNull ResponseReader reader) throws JSONException {
+        if (0 >= chunkSize) {
+            entity = readList(reader);
+            return true;
         }
-        if (null != entity) {
-            post(() -> onSuccess(entity, extra));
+        Type itemType = getDataType();
+        List<T> batch = new ArrayList<>(chunkSize);
+        reader.startArray();
+        while (reader.hasNext()) {
+            batch.add(reader.readObject(itemType));
+            if (chunkSize <= batch.size()) {
+                postChunk(batch);
+                batch = new ArrayList<>(chunkSize);
+            }
+        }
+        reader.endArray();
+        if (!batch.isEmpty()) {
+            postChunk(batch);
+        }
+        return true;
+    }
+
+    private void postChunk(@NonNull List<T> batch) {
+        deliverNow(() -> onChunk(batch));
+    }
+
+    @Override
+    public final boolean onParseData(String data) throws JSONException, NumberFormatException,
+            MissingFormatArgumentException {
+        if (null == data) {
+            return false;
         }
+        return parseData(new ResponseReader(new StringReader(data)), data);
+    }
 
-        return null != entity;
+    /**
+     * 成功，默认转为{@link #onSuccess(List, String)}
+     * @param data   主数据集
+     * @param extra  附加数据，访问时才解析
+     */
+    public void onSuccess(@NonNull List<T> data, @NonNull Extra extra) {
+        onSuccess(data, extra.toString());
     }
 
     /**
      * 成功
      * @param data   主数据集
      * @param extra  附加数据
+     * @deprecated 覆写{@link #onSuccess(List, Extra)}，附加数据不再预先生成文本
      */
-    public abstract void onSuccess(@NonNull List<T> data, @Nullable String extra);
+    @Deprecated
+    public void onSuccess(@NonNull List<T> data, @Nullable String extra) {
+    }
+
+    /**
+     * 增量模式下的一批数据，按结果集顺序回调
+     * Note: 批次读到即投递，其后响应有误时以onError结束，不再回调onComplete
+     * @param batch  本批数据
+     */
+    public void onChunk(@NonNull List<T> batch) {
+    }
+
+    /**
+     * 增量模式下所有批次交付完毕
+     * @param extra  附加数据，访问时才解析
+     */
+    public void onComplete(@NonNull Extra extra) {
+    }
 
 }
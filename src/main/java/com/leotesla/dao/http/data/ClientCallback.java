@@ -1,9 +1,12 @@
 package com.leotesla.dao.http.data;
 
+import android.support.annotation.NonNull;
+
 import com.alibaba.fastjson.JSONException;
 import com.leotesla.httpclient.ClientErrorHandler;
 
 import java.io.Serializable;
+import java.io.StringReader;
 
 /**
  * Client使用的数据接收器，此处完成数据解析
@@ -22,18 +25,43 @@ public abstract class ClientCallback<T extends Serializable> extends CallbackBas
     }
 
     @Override
-    public final boolean onParseData(String data) throws JSONException, NumberFormatException {
-        if (null == parsable) {
+    protected final boolean onParseData(@NonNull ResponseReader reader) throws JSONException {
+        if (null == getDataType()) {
             throw new RuntimeException("泛型参数不能为空");
         }
-        entity = parsable.parse(data);
+        entity = reader.readObject(getDataType());
         if (null != entity) {
-            post(() -> onSuccess(entity));
+            deliver(() -> onSuccess(entity));
         }
 
         return null != entity;
     }
 
+    @Override
+    final Parsed snapshot() {
+        return new Parsed(ClientCallback.class, getDataType(), entity, false, null, null);
+    }
+
+    @Override
+    final boolean accepts(@NonNull Parsed parsed) {
+        return parsed.matches(ClientCallback.class, getDataType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    final void restore(@NonNull Parsed parsed, Object entity) {
+        this.entity = (T) entity;
+        deliver(() -> onSuccess(this.entity));
+    }
+
+    @Override
+    public final boolean onParseData(String data) throws JSONException, NumberFormatException {
+        if (null == data) {
+            return false;
+        }
+        return onParseData(new ResponseReader(new StringReader(data)));
+    }
+
     /**
      * 成功
      *
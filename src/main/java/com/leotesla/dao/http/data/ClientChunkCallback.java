@@ -0,0 +1,48 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.leotesla.httpclient.ClientErrorHandler;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 增量交付的集合数据接收器，结果集逐批回调，工作线程不持有完整集合
+ *
+ * @version 1.0
+ */
+
+public abstract class ClientChunkCallback<T extends Serializable> extends ClientArrayCallback<T> {
+
+    /**
+     * @param chunkSize 每批数量，须大于0
+     */
+    public ClientChunkCallback(ClientErrorHandler errorHandler, Object tag, int chunkSize) {
+        super(errorHandler, tag, checkChunkSize(chunkSize));
+    }
+
+    private static int checkChunkSize(int chunkSize) {
+        if (0 >= chunkSize) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        return chunkSize;
+    }
+
+    /**
+     * 增量模式不回调
+     */
+    @Override
+    public final void onSuccess(@NonNull List<T> data, @NonNull Extra extra) {
+    }
+
+    @Override
+    @Deprecated
+    public final void onSuccess(@NonNull List<T> data, @Nullable String extra) {
+    }
+
+    @Override
+    public abstract void onChunk(@NonNull List<T> batch);
+
+}
@@ -3,14 +3,14 @@ package com.leotesla.dao.http.data;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-
-import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONException;
-import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.JSONToken;
 import com.leotesla.httpclient.ClientErrorHandler;
 
 import java.io.Serializable;
+import java.io.StringReader;
+import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.List;
 
@@ -26,54 +26,136 @@ public abstract class ClientSidArrayCallback<T extends Serializable> extends Cal
 
     private String sid = "";
     private List<T> entity;
-    private String extra = "";
+    private Extra extra = Extra.NONE;
 
     public ClientSidArrayCallback(ClientErrorHandler errorHandler, Object tag) {
         super(errorHandler, tag);
     }
 
+    /**
+     * @param itemType  元素类型，泛型参数为类型变量时使用
+     */
+    protected ClientSidArrayCallback(ClientErrorHandler errorHandler, Object tag,
+                                     @NonNull Type itemType) {
+        super(null, errorHandler, tag, itemType);
+    }
+
     @Override
-    public final boolean onParseData(String data) throws JSONException, NumberFormatException {
-        if (null == parsable) {
+    protected final boolean onParseData(@NonNull ResponseReader reader) throws JSONException,
+            NumberFormatException {
+        return parseData(reader, null);
+    }
+
+    /**
+     * @param data  数据区文本，从响应体直接读取时为null
+     */
+    private boolean parseData(@NonNull ResponseReader reader, @Nullable String data)
+            throws JSONException, NumberFormatException {
+        if (null == getDataType()) {
             throw new RuntimeException("泛型参数不能为空");
         }
-        Object object = JSON.parse(data);
-
-        if (object instanceof JSONObject) {
-            JSONObject jsonObject = (JSONObject) object;
-            if (jsonObject.isEmpty()) {
+        int token = reader.peekValue();
+        if (JSONToken.LBRACE == token) {
+            String cursor = null;
+            List<T> results = null;
+            // 去除结果集和sid，其余为额外信息，读取时跳过，按原文记录
+            boolean remains = false;
+            boolean empty = true;
+            reader.startObject();
+            while (reader.hasNext()) {
+                empty = false;
+                String key = reader.readString();
+                if ("sid".equals(key)) {
+                    cursor = reader.readString();
+                } else if ("results".equals(key)) {
+                    // 解析数据区
+                    results = readList(reader);
+                } else {
+                    reader.skipValue();
+                    remains = true;
+                }
+            }
+            reader.endObject();
+            if (empty) {
                 entity = Collections.emptyList();
                 // fixme 一种兼容后端正确返回结构
-            } else if (jsonObject.containsKey("sid")) {
-                sid = jsonObject.getString("sid");
-                if (jsonObject.containsKey("results")) {
-                    // 解析数据区
-                    entity = parsable.parseList(jsonObject.getString("results"));
-                    // 去除结果集，其余为额外信息
-                    jsonObject.remove("results");
-                    jsonObject.remove("sid");
-                    extra = jsonObject.toJSONString();
+            } else if (null != cursor && null != results) {
+                sid = cursor;
+                entity = results;
+                if (!remains) {
+                    extra = Extra.EMPTY;
+                } else {
+                    extra = null != data ? Extra.ofData(data, "results", "sid")
+                            : Extra.ofBody(body(), "results", "sid");
                 }
             }
-        } else if (object instanceof JSONArray) {
+        } else if (JSONToken.LBRACKET == token) {
             // fixme 兼容后端在数据集为空时直接返回空数组
-            if (((JSONArray) object).isEmpty()) {
+            if (((JSONArray) reader.readObject()).isEmpty()) {
                 entity = Collections.emptyList();
             }
+        } else {
+            reader.readObject();
         }
         if (null != sid && null != entity) {
-            post(() -> onSuccess(sid, entity, extra));
+            deliver(() -> onSuccess(sid, entity, extra));
         }
 
         return null != entity;
     }
 
+    @Override
+    final int resultsLayout() {
+        return ParallelDecoder.LAYOUT_NESTED;
+    }
+
+    @Override
+    final Parsed snapshot() {
+        return new Parsed(ClientSidArrayCallback.class, getDataType(), entity, true, sid, extra);
+    }
+
+    @Override
+    final boolean accepts(@NonNull Parsed parsed) {
+        return parsed.matches(ClientSidArrayCallback.class, getDataType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    final void restore(@NonNull Parsed parsed, Object entity) {
+        // 集合与元素都是独立副本
+        this.sid = parsed.sid;
+        this.entity = (List<T>) entity;
+        this.extra = parsed.extra;
+        deliver(() -> onSuccess(this.sid, this.entity, this.extra));
+    }
+
+    @Override
+    public final boolean onParseData(String data) throws JSONException, NumberFormatException {
+        if (null == data) {
+            return false;
+        }
+        return parseData(new ResponseReader(new StringReader(data)), data);
+    }
+
+    /**
+     * 成功，默认转为{@link #onSuccess(String, List, String)}
+     * @param sid   分页标记
+     * @param data  主数据集
+     * @param extra 可能包含的额外数据信息，访问时才解析
+     */
+    public void onSuccess(@NonNull String sid, @NonNull List<T> data, @NonNull Extra extra) {
+        onSuccess(sid, data, extra.toString());
+    }
+
     /**
      * 成功
      * @param sid   分页标记
      * @param data  主数据集
      * @param extra 可能包含的额外数据信息
+     * @deprecated 覆写{@link #onSuccess(String, List, Extra)}，附加数据不再预先生成文本
      */
-    public abstract void onSuccess(@NonNull String sid, @NonNull List<T> data, @Nullable String extra);
+    @Deprecated
+    public void onSuccess(@NonNull String sid, @NonNull List<T> data, @Nullable String extra) {
+    }
 
 }
@@ -1,5 +1,7 @@
 package com.leotesla.dao.http.data;
 
+import android.support.annotation.NonNull;
+
 import com.leotesla.httpclient.ClientErrorHandler;
 
 /**
@@ -16,9 +18,33 @@ public abstract class ClientVoidCallback extends CallbackBase {
         super(errorHandler, tag);
     }
 
+    @Override
+    protected final boolean onParseData(@NonNull ResponseReader reader) {
+        // 仅消费数据区，不做类型绑定
+        reader.readObject();
+        deliver(this::onSuccess);
+        return true;
+    }
+
+    @Override
+    final Parsed snapshot() {
+        return new Parsed(ClientVoidCallback.class, null, null, false, null, null);
+    }
+
+    @Override
+    final boolean accepts(@NonNull Parsed parsed) {
+        // 任意成功响应都满足无数据回调
+        return true;
+    }
+
+    @Override
+    final void restore(@NonNull Parsed parsed, Object entity) {
+        deliver(this::onSuccess);
+    }
+
     @Override
     public final boolean onParseData(String data) throws NumberFormatException {
-        post(this::onSuccess);
+        deliver(this::onSuccess);
         return true;
     }
 
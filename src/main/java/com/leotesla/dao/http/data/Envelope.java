@@ -0,0 +1,144 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+
+/**
+ * 响应信封{"error": 状态码, "data": 数据区}的单次流式读取
+ * 不依赖Android框架与引擎，基准测试直接编译此类
+ *
+ * @version 1.0
+ */
+
+final class Envelope {
+
+    /**
+     * 数据区解析
+     */
+    interface DataParser {
+
+        /**
+         * 从读取器直接解析数据区
+         * @return  false, 与解析格式不匹配
+         */
+        boolean parse(@NonNull ResponseReader reader) throws JSONException;
+
+        /**
+         * 解析已读出的数据区文本，data在error之前且无法预先取得状态码时使用
+         * @return  false, 与解析格式不匹配
+         */
+        boolean parse(String data) throws JSONException;
+
+    }
+
+    // 状态码，缺失时为null
+    final Integer code;
+    // 是否有数据区
+    final boolean hasData;
+    // 数据区是否与解析格式匹配，仅状态码为0时有效
+    final boolean matched;
+    // 状态码不为0时的数据区文本
+    final String message;
+
+    private Envelope(Integer code, boolean hasData, boolean matched, String message) {
+        this.code = code;
+        this.hasData = hasData;
+        this.matched = matched;
+        this.message = message;
+    }
+
+    /**
+     * 读取信封，状态码为0时解析数据区
+     * Note: data在error之前时先扫描响应体取得状态码，成功时同样直接解析数据区
+     *
+     * @param reader    响应读取器
+     * @param content   响应体，用于扫描状态码
+     * @param parser    数据区解析
+     */
+    @NonNull
+    @WorkerThread
+    static Envelope read(@NonNull ResponseReader reader, @NonNull String content,
+                         @NonNull DataParser parser) throws JSONException {
+        Integer code = null;
+        boolean hasData = false, parsed = false, matched = true;
+        Object pending = null;
+        reader.startObject();
+        while (reader.hasNext()) {
+            String key = reader.readString();
+            if ("error".equals(key)) {
+                // 解析数据状态码
+                Integer value = reader.readInteger();
+                code = null == value ? 0 : value;
+            } else if ("data".equals(key)) {
+                hasData = true;
+                // error在后时扫描取得状态码
+                Integer known = null != code ? code : scanCode(content);
+                if (null != known && 0 == known) {
+                    // 成功状态已知，直接解析数据区
+                    matched = parser.parse(reader);
+                    parsed = true;
+                } else {
+                    pending = reader.readObject();
+                }
+            } else {
+                reader.readObject();
+            }
+        }
+        reader.endObject();
+
+        if (null == code || 0 != code || !hasData) {
+            return new Envelope(code, hasData, false, toText(pending));
+        }
+        if (!parsed) {
+            matched = parser.parse(toText(pending));
+        }
+        return new Envelope(code, true, matched, null);
+    }
+
+    /**
+     * 扫描顶层error的值
+     * @return  null, 缺失或无法识别，由读取器读到error后处理
+     */
+    @Nullable
+    static Integer scanCode(@NonNull String content) {
+        int[] span = JsonScanner.findField(content, JsonScanner.skipSpace(content, 0), "error");
+        return null == span ? null : parseCode(content, span[0], span[1]);
+    }
+
+    /**
+     * 解析状态码的值，只识别数字、数字字符串和null，null视为0
+     * @param start 值起始位置
+     * @param end   值之后位置
+     * @return      null, 无法识别
+     */
+    @Nullable
+    static Integer parseCode(@NonNull String content, int start, int end) {
+        String value = content.substring(start, end);
+        if ("null".equals(value)) {
+            return 0;
+        }
+        if (value.startsWith("\"") && value.endsWith("\"") && 2 <= value.length()) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 与原JSONObject.getString语义一致的文本化
+     */
+    static String toText(Object value) {
+        if (null == value || value instanceof String) {
+            return (String) value;
+        }
+        return JSON.toJSONString(value);
+    }
+
+}
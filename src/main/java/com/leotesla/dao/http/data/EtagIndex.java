@@ -0,0 +1,223 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.support.v4.util.LruCache;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 内存ETag索引，请求前O(1)取得上次的ETag，服务端返回未修改时直接投递上次的解析结果
+ * 索引以紧凑二进制格式持久化，进程重启后无需读取磁盘缓存头部
+ * 资源标识含请求参数，可能有账号等敏感信息，索引只保存其摘要
+ *
+ * @version 1.0
+ */
+
+public final class EtagIndex {
+
+    // 文件格式版本，3起以地址和参数的摘要为资源标识
+    private static final int VERSION = 3;
+    // 未修改状态码
+    public static final int NOT_MODIFIED = 304;
+    // 服务端头部信息中的etag资源状态标识，内容为Etag:W/"71f-5s1+guZP4QsgdPvsa5n8FPRee/I"
+    public static final String RES_ETAG = "ETag";
+    // 客户端请求时头部需要携带此标识，值为上次的该请求etag，比如：X-DOUPAI-ETAG-MATCH:W/"71f-5s1+guZP4QsgdPvsa5n8FPRee/I"
+    public static final String REQ_ETAG = "X-DOUPAI-ETAG-MATCH";
+    // 摘要的十六进制字符
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // 持久化文件
+    private final File file;
+    // 最大条目数
+    private final int maxEntries;
+    // 资源摘要对应的ETag，按访问顺序淘汰
+    private final LinkedHashMap<String, String> tags;
+    // 资源摘要和ETag对应的解析结果
+    private final LruCache<ResultKey, Parsed> results;
+    // 持久化任务是否已排队
+    private final AtomicBoolean saving = new AtomicBoolean();
+
+    /**
+     * @param file          持久化文件
+     * @param maxEntries    最大索引条目数
+     * @param maxResults    最多保留的解析结果数
+     */
+    public EtagIndex(@NonNull File file, int maxEntries, int maxResults) {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.tags = new LinkedHashMap<String, String>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > EtagIndex.this.maxEntries;
+            }
+        };
+        this.results = new LruCache<>(maxResults);
+    }
+
+    /**
+     * 异步载入持久化索引
+     */
+    public void loadAsync() {
+        HttpExecutors.background().execute(this::load);
+    }
+
+    @WorkerThread
+    private void load() {
+        SnapshotFile.read(file, in -> {
+            if (VERSION != in.readInt()) {
+                // 旧版本以明文保存资源标识，不再载入，立即以当前格式覆盖
+                if (saving.compareAndSet(false, true)) {
+                    HttpExecutors.background().execute(this::save);
+                }
+                return;
+            }
+            int count = in.readInt();
+            synchronized (tags) {
+                for (int i = 0; i < count; i++) {
+                    String key = in.readUTF();
+                    String etag = in.readUTF();
+                    // 运行期间新写入的优先
+                    if (!tags.containsKey(key)) {
+                        tags.put(key, etag);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 获取资源上次的ETag
+     * @param resource  资源标识，地址与参数，只以摘要查找
+     * @return  null, 未索引; 空字符串, 已知没有ETag
+     */
+    @Nullable
+    public String get(@NonNull String resource) {
+        String key = keyOf(resource);
+        synchronized (tags) {
+            return tags.get(key);
+        }
+    }
+
+    /**
+     * 记录资源的ETag，空字符串表示没有ETag且不持久化
+     * @param resource  资源标识，地址与参数
+     */
+    public void put(@NonNull String resource, @NonNull String etag) {
+        String key = keyOf(resource);
+        String previous;
+        synchronized (tags) {
+            previous = tags.put(key, etag);
+        }
+        if (!etag.isEmpty() && !etag.equals(previous) && saving.compareAndSet(false, true)) {
+            HttpExecutors.background().execute(this::save);
+        }
+    }
+
+    /**
+     * 记录资源在该ETag下的解析结果，同一资源只保留最近一次解析的类型
+     */
+    void remember(@NonNull String resource, @NonNull String etag, @NonNull Parsed parsed) {
+        results.put(new ResultKey(keyOf(resource), etag), parsed);
+    }
+
+    /**
+     * 获取资源在该ETag下按指定类型解析的结果
+     */
+    @Nullable
+    Parsed find(@NonNull String resource, Type type, @NonNull String etag) {
+        Parsed parsed = results.get(new ResultKey(keyOf(resource), etag));
+        return null == parsed || !(null == type ? null == parsed.type : type.equals(parsed.type))
+                ? null : parsed;
+    }
+
+    /**
+     * 是否保留了资源在该ETag下的解析结果，没有时不应以该ETag请求
+     */
+    public boolean hasResult(@NonNull String resource, @NonNull String etag) {
+        return null != results.get(new ResultKey(keyOf(resource), etag));
+    }
+
+    /**
+     * 资源标识的摘要，SHA-256前128位的十六进制
+     */
+    @NonNull
+    private static String keyOf(@NonNull String resource) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256")
+                    .digest(resource.getBytes(Charset.forName("UTF-8")));
+        } catch (NoSuchAlgorithmException e) {
+            // 所有平台都提供SHA-256
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[32];
+        for (int i = 0; i < 16; i++) {
+            hex[2 * i] = HEX[(digest[i] >> 4) & 0xf];
+            hex[2 * i + 1] = HEX[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * 解析结果标识，不同资源可能返回相同的ETag
+     */
+    private static final class ResultKey {
+
+        private final String key;
+        private final String etag;
+
+        private ResultKey(@NonNull String key, @NonNull String etag) {
+            this.key = key;
+            this.etag = etag;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ResultKey)) return false;
+            ResultKey other = (ResultKey) o;
+            return etag.equals(other.etag) && key.equals(other.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + etag.hashCode();
+        }
+
+    }
+
+    @WorkerThread
+    private void save() {
+        saving.set(false);
+        List<Map.Entry<String, String>> snapshot;
+        synchronized (tags) {
+            snapshot = new ArrayList<>(tags.entrySet());
+        }
+        SnapshotFile.write(file, out -> {
+            out.writeInt(VERSION);
+            int count = 0;
+            for (Map.Entry<String, String> entry : snapshot) {
+                if (!entry.getValue().isEmpty()) count++;
+            }
+            out.writeInt(count);
+            for (Map.Entry<String, String> entry : snapshot) {
+                if (!entry.getValue().isEmpty()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(entry.getValue());
+                }
+            }
+        });
+    }
+
+}
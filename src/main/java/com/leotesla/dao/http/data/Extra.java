@@ -0,0 +1,136 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * 集合响应中结果集之外的附加数据，解析时只记录原文，访问时才解析
+ * 不可变，可在合并请求与内存缓存的多个接收者间共享
+ *
+ * @version 1.0
+ */
+
+public final class Extra {
+
+    // 数据区不是对象结构时没有附加数据
+    static final Extra NONE = new Extra("");
+    // 数据区只有结果集
+    static final Extra EMPTY = new Extra("{}");
+
+    // 附加字段的JSON原文
+    private final String text;
+
+    private Extra(@NonNull String text) {
+        this.text = text;
+    }
+
+    /**
+     * 从数据区文本收集附加字段
+     * @param data      数据区文本
+     * @param skipped   不属于附加数据的字段
+     */
+    @NonNull
+    static Extra ofData(@NonNull String data, @NonNull String... skipped) {
+        return scan(data, JsonScanner.skipSpace(data, 0), skipped);
+    }
+
+    /**
+     * 从响应体的data区收集附加字段
+     * @param body      响应体
+     * @param skipped   不属于附加数据的字段
+     */
+    @NonNull
+    static Extra ofBody(@Nullable String body, @NonNull String... skipped) {
+        if (null == body) {
+            return EMPTY;
+        }
+        int[] span = JsonScanner.findField(body, JsonScanner.skipSpace(body, 0), "data");
+        return null == span ? EMPTY : scan(body, span[0], skipped);
+    }
+
+    /**
+     * 按原文截取对象中除skipped之外的字段，结果集等大字段只扫描不复制
+     * @param start 对象起始位置
+     */
+    @NonNull
+    private static Extra scan(@NonNull String text, int start, @NonNull String... skipped) {
+        if (!JsonScanner.at(text, start, '{')) {
+            return EMPTY;
+        }
+        StringBuilder builder = new StringBuilder().append('{');
+        int pos = JsonScanner.skipSpace(text, start + 1);
+        while (JsonScanner.at(text, pos, '"')) {
+            int keyEnd = JsonScanner.skipString(text, pos);
+            int colon = JsonScanner.skipSpace(text, keyEnd);
+            if (!JsonScanner.at(text, colon, ':')) {
+                break;
+            }
+            int end = JsonScanner.skipValue(text, JsonScanner.skipSpace(text, colon + 1));
+            if (-1 == end) {
+                break;
+            }
+            if (!isSkipped(text, pos + 1, keyEnd - 1, skipped)) {
+                if (1 < builder.length()) {
+                    builder.append(',');
+                }
+                builder.append(text, pos, end);
+            }
+            pos = JsonScanner.skipSpace(text, end);
+            if (!JsonScanner.at(text, pos, ',')) {
+                break;
+            }
+            pos = JsonScanner.skipSpace(text, pos + 1);
+        }
+
+        return 1 == builder.length() ? EMPTY : new Extra(builder.append('}').toString());
+    }
+
+    private static boolean isSkipped(@NonNull String text, int from, int to,
+                                     @NonNull String[] skipped) {
+        for (String name : skipped) {
+            if (to - from == name.length() && text.regionMatches(from, name, 0, name.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否没有任何附加字段
+     */
+    public boolean isEmpty() {
+        return 2 >= text.length();
+    }
+
+    /**
+     * 获取单个附加字段
+     * Note: 每次调用独立解析，返回值归调用方所有
+     * @param key   字段名
+     */
+    @Nullable
+    public Object get(@NonNull String key) {
+        return isEmpty() ? null : JSON.parseObject(text).get(key);
+    }
+
+    /**
+     * 绑定为指定类型
+     * Note: 每次调用生成新对象，返回值归调用方所有
+     * @param clazz 目标类型
+     */
+    @Nullable
+    public <E> E toJavaObject(@NonNull Class<E> clazz) {
+        return text.isEmpty() ? null : JSON.parseObject(text, clazz);
+    }
+
+    /**
+     * 附加数据的JSON文本，字段保持响应中的原文
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        return text;
+    }
+
+}
@@ -0,0 +1,63 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 网络模块的后台线程，统一创建、命名，空闲时回收
+ * Note: 响应解析线程由{@link ParseExecutor}管理，可单独调整
+ *
+ * @version 1.0
+ */
+
+public final class HttpExecutors {
+
+    // 磁盘读写、初始化与推迟的解析，串行执行
+    private static final ThreadPoolExecutor BACKGROUND = newPool("http-io", 1);
+    // 大结果集分段解码，调用线程解码第一段
+    private static final ThreadPoolExecutor DECODE = newPool("http-decode",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+
+    private HttpExecutors() {
+    }
+
+    /**
+     * 串行后台线程，用于磁盘读写和初始化等短任务
+     */
+    @NonNull
+    public static Executor background() {
+        return BACKGROUND;
+    }
+
+    /**
+     * 分段解码线程
+     */
+    @NonNull
+    static ExecutorService decode() {
+        return DECODE;
+    }
+
+    /**
+     * 按名称前缀编号的线程
+     */
+    @NonNull
+    private static ThreadFactory threadFactory(@NonNull String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> new Thread(r, prefix + "-" + count.incrementAndGet());
+    }
+
+    private static ThreadPoolExecutor newPool(@NonNull String prefix, int threads) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory(prefix));
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+}
@@ -0,0 +1,119 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * 响应体结构扫描，只识别字符串与括号层级，不构建任何对象
+ * 用于在解析前定位字段值的位置
+ *
+ * @version 1.0
+ */
+
+final class JsonScanner {
+
+    private JsonScanner() {
+    }
+
+    /**
+     * 查找对象的字段值
+     * @param text  响应体
+     * @param pos   '{'位置
+     * @param name  字段名
+     * @return      {值起始位置, 值之后位置}，未找到或结构不完整时为null
+     */
+    @Nullable
+    static int[] findField(@NonNull String text, int pos, @NonNull String name) {
+        if (!at(text, pos, '{')) {
+            return null;
+        }
+        pos = skipSpace(text, pos + 1);
+        while (at(text, pos, '"')) {
+            int keyEnd = skipString(text, pos);
+            boolean found = name.equals(text.substring(pos + 1, keyEnd - 1));
+            pos = skipSpace(text, keyEnd);
+            if (!at(text, pos, ':')) {
+                return null;
+            }
+            int value = skipSpace(text, pos + 1);
+            int end = skipValue(text, value);
+            if (-1 == end) {
+                return null;
+            }
+            if (found) {
+                return new int[]{value, end};
+            }
+            pos = skipSpace(text, end);
+            if (!at(text, pos, ',')) {
+                return null;
+            }
+            pos = skipSpace(text, pos + 1);
+        }
+
+        return null;
+    }
+
+    static boolean at(@NonNull String text, int pos, char c) {
+        return pos < text.length() && c == text.charAt(pos);
+    }
+
+    static int skipSpace(@NonNull String text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+
+        return pos;
+    }
+
+    /**
+     * @param pos   起始引号位置
+     * @return      结束引号之后位置
+     */
+    static int skipString(@NonNull String text, int pos) {
+        for (pos++; pos < text.length(); pos++) {
+            char c = text.charAt(pos);
+            if ('\\' == c) {
+                pos++;
+            } else if ('"' == c) {
+                return pos + 1;
+            }
+        }
+
+        return text.length();
+    }
+
+    /**
+     * @param pos   值起始位置
+     * @return      值之后位置，结构不完整时为-1
+     */
+    static int skipValue(@NonNull String text, int pos) {
+        if (pos >= text.length()) {
+            return -1;
+        }
+        char first = text.charAt(pos);
+        if ('"' == first) {
+            return skipString(text, pos);
+        }
+        if ('{' != first && '[' != first) {
+            // 数字与字面量
+            while (pos < text.length() && -1 == ",}] \t\r\n".indexOf(text.charAt(pos))) {
+                pos++;
+            }
+            return pos;
+        }
+        int depth = 0;
+        for (; pos < text.length(); pos++) {
+            char c = text.charAt(pos);
+            if ('"' == c) {
+                pos = skipString(text, pos) - 1;
+            } else if ('{' == c || '[' == c) {
+                depth++;
+            } else if (('}' == c || ']' == c) && 0 == --depth) {
+                return pos + 1;
+            }
+        }
+
+        return -1;
+    }
+
+}
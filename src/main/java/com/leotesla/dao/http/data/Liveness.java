@@ -0,0 +1,66 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+/**
+ * 投递Handler的存活约定，回调据此决定立即解析、推迟解析或跳过解析
+ *
+ * @version 1.0
+ */
+
+public interface Liveness {
+
+    // 正常处理消息
+    int ALIVE = 0;
+    // 挂起但会积攒消息，唤醒后处理
+    int SUSPENDED = 1;
+    // 已退出或挂起时丢弃消息，投递的结果无人接收
+    int DEAD = 2;
+
+    /**
+     * 当前存活状态
+     */
+    int getLiveness();
+
+    /**
+     * 登记唤醒后执行的任务，当前已活动时立即恢复，已退出时立即放弃
+     * 登记数有上限，推迟的任务通常持有完整的响应
+     * @return  false, 登记已满，任务未登记，由调用方自行处理
+     */
+    boolean whenAlive(@NonNull Deferred task);
+
+    /**
+     * 登记退出监听，重复登记只保留一次，已退出时立即回调
+     */
+    void addOnExitListener(@NonNull OnExitListener listener);
+
+    /**
+     * 推迟到唤醒后的任务，恢复与放弃只会发生其一
+     */
+    interface Deferred {
+
+        /**
+         * 已唤醒，在唤醒线程执行，不应做耗时操作
+         */
+        void resume();
+
+        /**
+         * 已退出或不再积攒消息，任务不再执行
+         */
+        void drop();
+
+    }
+
+    /**
+     * 退出监听
+     */
+    interface OnExitListener {
+
+        /**
+         * 已退出，投递到此处的结果无人接收
+         */
+        void onExit(@NonNull Liveness liveness);
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.leotesla.dao.http.data;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已解析对象的内存缓存，位于磁盘Http缓存之前，命中时无IO也无解析
+ * 缓存的是快照原本，接收者拿到各自的副本，对副本的修改不影响缓存
+ *
+ * @version 1.0
+ */
+
+public final class MemoryCache {
+
+    private final LruCache<Object, Entry> entries;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries    最大条目数
+     */
+    public MemoryCache(int maxEntries) {
+        this.entries = new LruCache<>(maxEntries);
+    }
+
+    /**
+     * 尝试以缓存结果响应回调，回调需已指定投递的Handler
+     * Note: 调用线程不做解析，取预先复制好的副本投递；副本未备好时在后台复制后投递
+     * @param key       请求标识
+     * @param callback  回调
+     * @return          true, 已命中
+     */
+    public boolean serve(@NonNull Object key, @NonNull CallbackBase<?> callback) {
+        Entry entry = entries.get(key);
+        if (null != entry) {
+            if (SystemClock.elapsedRealtime() < entry.expireAt) {
+                Parsed parsed = entry.parsed;
+                if (callback.accepts(parsed)) {
+                    hits.incrementAndGet();
+                    Object copy = parsed.take();
+                    if (null != copy || parsed.isEmpty()) {
+                        callback.restoreAs(parsed, copy, RequestTrace.Source.MEMORY);
+                    } else {
+                        HttpExecutors.background().execute(() -> callback.restoreAs(parsed,
+                                parsed.copy(), RequestTrace.Source.MEMORY));
+                    }
+                    return true;
+                }
+            } else {
+                entries.remove(key);
+            }
+        }
+        misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 写入解析结果
+     * @param ttl   有效时长，毫秒
+     */
+    void store(@NonNull Object key, @NonNull Parsed parsed, long ttl) {
+        entries.put(key, new Entry(parsed, SystemClock.elapsedRealtime() + ttl));
+        parsed.prepare();
+    }
+
+    /**
+     * 移除指定请求的缓存
+     */
+    public void remove(@NonNull Object key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.evictAll();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    private static final class Entry {
+
+        private final Parsed parsed;
+        private final long expireAt;
+
+        private Entry(Parsed parsed, long expireAt) {
+            this.parsed = parsed;
+            this.expireAt = expireAt;
+        }
+
+    }
+
+}
@@ -0,0 +1,191 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.alibaba.fastjson.JSONException;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * 大结果集并行解码
+ * 先以结构扫描定位data区的结果集数组并按顶层逗号切成近似等长的片段，
+ * 再由解码线程与调用线程分别解析各片段，按原顺序拼接；各片段直接读取原响应体，不复制
+ *
+ * @version 1.0
+ */
+
+final class ParallelDecoder {
+
+    // 结果集位置：不支持并行解码、仅data.results、data.results或data本身为数组
+    static final int LAYOUT_NONE = 0;
+    static final int LAYOUT_NESTED = 1;
+    static final int LAYOUT_NESTED_OR_BARE = 2;
+
+    // 片段数，调用线程解码第一段
+    private static final int SLICES = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private ParallelDecoder() {
+    }
+
+    /**
+     * 定位结果集数组，扫描完整个顶层对象，error为0时才返回
+     * Note: error可能在data之后，须在解码前确认
+     * @param text      响应体
+     * @param layout    结果集位置
+     * @return          {'['位置, ']'之后位置}，未找到、error不为0或结构不完整时为null
+     */
+    @Nullable
+    static int[] locate(@NonNull String text, int layout) {
+        int pos = JsonScanner.skipSpace(text, 0);
+        if (LAYOUT_NONE == layout || !JsonScanner.at(text, pos, '{')) {
+            return null;
+        }
+        int[] span = null;
+        Integer code = null;
+        pos = JsonScanner.skipSpace(text, pos + 1);
+        while (JsonScanner.at(text, pos, '"')) {
+            int keyEnd = JsonScanner.skipString(text, pos);
+            String key = text.substring(pos + 1, keyEnd - 1);
+            pos = JsonScanner.skipSpace(text, keyEnd);
+            if (!JsonScanner.at(text, pos, ':')) {
+                return null;
+            }
+            int value = JsonScanner.skipSpace(text, pos + 1);
+            int end = JsonScanner.skipValue(text, value);
+            if (-1 == end) {
+                return null;
+            }
+            if ("error".equals(key)) {
+                code = Envelope.parseCode(text, value, end);
+                if (null == code || 0 != code) {
+                    return null;
+                }
+            } else if ("data".equals(key)) {
+                if (JsonScanner.at(text, value, '[')) {
+                    span = LAYOUT_NESTED_OR_BARE == layout ? new int[]{value, end} : null;
+                } else {
+                    int[] results = JsonScanner.findField(text, value, "results");
+                    span = null != results && JsonScanner.at(text, results[0], '[')
+                            ? results : null;
+                }
+            }
+            pos = JsonScanner.skipSpace(text, end);
+            if (!JsonScanner.at(text, pos, ',')) {
+                break;
+            }
+            pos = JsonScanner.skipSpace(text, pos + 1);
+        }
+
+        return null != code && JsonScanner.at(text, pos, '}') ? span : null;
+    }
+
+    /**
+     * 并行解码数组，每段包装为独立数组解析
+     * @param text  响应体
+     * @param start '['位置
+     * @param end   ']'之后位置
+     * @param type  元素类型
+     */
+    @NonNull
+    @WorkerThread
+    static <T> List<T> decode(@NonNull String text, int start, int end, @NonNull Type type)
+            throws JSONException {
+        List<int[]> slices = split(text, start, end, SLICES);
+        List<Future<List<T>>> futures = new ArrayList<>(slices.size());
+        for (int i = 1; i < slices.size(); i++) {
+            int[] slice = slices.get(i);
+            Callable<List<T>> task = () -> decodeSlice(text, slice[0], slice[1], type);
+            futures.add(HttpExecutors.decode().submit(task));
+        }
+        List<T> first = slices.isEmpty() ? new ArrayList<>()
+                : ParallelDecoder.<T>decodeSlice(text, slices.get(0)[0], slices.get(0)[1], type);
+        List<List<T>> parts = new ArrayList<>(slices.size());
+        parts.add(first);
+        int size = first.size();
+        try {
+            for (Future<List<T>> future : futures) {
+                List<T> part = future.get();
+                parts.add(part);
+                size += part.size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSONException("decode interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new JSONException("decode failed", cause);
+        } finally {
+            for (Future<List<T>> future : futures) {
+                future.cancel(false);
+            }
+        }
+        List<T> list = new ArrayList<>(size);
+        for (List<T> part : parts) {
+            list.addAll(part);
+        }
+
+        return list;
+    }
+
+    /**
+     * 按顶层逗号切分数组内容，每段为若干完整元素
+     * @param count 最多切分的段数
+     * @return      各段的{起始位置, 结束位置}，不含方括号与分隔逗号；空数组时为空
+     */
+    @NonNull
+    static List<int[]> split(@NonNull String text, int start, int end, int count) {
+        List<int[]> slices = new ArrayList<>(count);
+        int from = start + 1, close = end - 1;
+        if (JsonScanner.skipSpace(text, from) >= close) {
+            return slices;
+        }
+        int step = (close - from) / count;
+        int target = from + step;
+        int depth = 0;
+        for (int pos = from; pos < close; pos++) {
+            char c = text.charAt(pos);
+            if ('"' == c) {
+                pos = JsonScanner.skipString(text, pos) - 1;
+            } else if ('{' == c || '[' == c) {
+                depth++;
+            } else if ('}' == c || ']' == c) {
+                depth--;
+            } else if (',' == c && 0 == depth && pos >= target
+                    && slices.size() < count - 1) {
+                slices.add(new int[]{from, pos});
+                from = pos + 1;
+                target = pos + step;
+            }
+        }
+        slices.add(new int[]{from, close});
+
+        return slices;
+    }
+
+    /**
+     * 解码一段元素，原文直接包装为数组读取，不复制
+     */
+    @NonNull
+    private static <T> List<T> decodeSlice(@NonNull String text, int from, int to,
+                                           @NonNull Type type) {
+        ResponseReader reader = new ResponseReader(RangeReader.wrap(text, from, to, "[", "]"));
+        List<T> list = new ArrayList<>();
+        reader.startArray();
+        while (reader.hasNext()) {
+            list.add(reader.readObject(type));
+        }
+        reader.endArray();
+
+        return list;
+    }
+
+}
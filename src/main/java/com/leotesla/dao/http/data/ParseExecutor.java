@@ -0,0 +1,204 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 响应解析线程池，与引擎的网络线程分离
+ * 网络线程收完响应体即返回，解析按请求优先级排队；排队数达到上限时退回网络线程解析，形成背压
+ *
+ * @version 1.0
+ */
+
+public final class ParseExecutor {
+
+    private final ThreadPoolExecutor pool;
+    // 同一优先级按提交顺序执行
+    private final AtomicLong sequence = new AtomicLong();
+    // 排队上限，0时全部在网络线程解析
+    private volatile int capacity;
+    private volatile int threads;
+    // 排队统计
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong inline = new AtomicLong();
+
+    /**
+     * 解析线程
+     */
+    private static final class ParseThread extends Thread {
+
+        private ParseThread(@NonNull Runnable target, @NonNull String name) {
+            super(target, name);
+        }
+
+    }
+
+    /**
+     * 排队的解析任务，优先级高的先执行
+     */
+    private final class Task implements Runnable, Comparable<Task> {
+
+        private final int priority;
+        private final long order;
+        private final Runnable action;
+
+        private Task(@NonNull Priority priority, @NonNull Runnable action) {
+            this.priority = priority.ordinal();
+            this.order = sequence.getAndIncrement();
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            depth.decrementAndGet();
+            action.run();
+        }
+
+        @Override
+        public int compareTo(@NonNull Task other) {
+            if (priority != other.priority) {
+                return priority < other.priority ? -1 : 1;
+            }
+            return order < other.order ? -1 : (order == other.order ? 0 : 1);
+        }
+
+    }
+
+    /**
+     * @param threads   解析线程数，0时在网络线程解析
+     * @param capacity  排队上限
+     */
+    public ParseExecutor(int threads, int capacity) {
+        AtomicInteger count = new AtomicInteger();
+        int size = Math.max(1, threads);
+        this.pool = new ThreadPoolExecutor(size, size, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                r -> new ParseThread(r, "http-parse-" + count.incrementAndGet()));
+        this.pool.allowCoreThreadTimeOut(true);
+        this.threads = Math.max(0, threads);
+        this.capacity = Math.max(0, capacity);
+    }
+
+    /**
+     * 调整线程数与排队上限，已排队的任务不受影响
+     * @param threads   解析线程数，0时在网络线程解析
+     * @param capacity  排队上限
+     */
+    public synchronized void configure(int threads, int capacity) {
+        int size = Math.max(1, threads);
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+        this.threads = Math.max(0, threads);
+        this.capacity = Math.max(0, capacity);
+    }
+
+    /**
+     * 是否开启独立解析
+     */
+    boolean isEnabled() {
+        return 0 < threads;
+    }
+
+    /**
+     * 当前线程是否为解析线程，解析线程内的后续解析直接执行
+     */
+    static boolean isParseThread() {
+        return Thread.currentThread() instanceof ParseThread;
+    }
+
+    /**
+     * 尝试交给解析线程
+     * @return  false, 已关闭或排队已满，由调用方在当前线程解析
+     */
+    boolean offer(@NonNull Priority priority, @NonNull Runnable action) {
+        if (0 == threads || depth.get() >= capacity) {
+            inline.incrementAndGet();
+            return false;
+        }
+        enqueue(priority, action);
+        return true;
+    }
+
+    /**
+     * 交给解析线程，不受排队上限限制
+     * Note: 用于不能在调用线程解析的场合，如投递Handler恢复时
+     */
+    void execute(@NonNull Priority priority, @NonNull Runnable action) {
+        enqueue(priority, action);
+    }
+
+    private void enqueue(@NonNull Priority priority, @NonNull Runnable action) {
+        submitted.incrementAndGet();
+        int current = depth.incrementAndGet();
+        int peak;
+        while (current > (peak = peakDepth.get()) && !peakDepth.compareAndSet(peak, current)) {
+            // 重试更新峰值
+        }
+        pool.execute(new Task(priority, action));
+    }
+
+    /**
+     * 停止解析线程，丢弃排队中的任务，此后不应再提交
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 排队中的解析任务数
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * 排队数峰值
+     */
+    public int getPeakDepth() {
+        return peakDepth.get();
+    }
+
+    /**
+     * 正在解析的任务数
+     */
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    /**
+     * 交给解析线程的任务数
+     */
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    /**
+     * 因排队已满退回网络线程解析的次数
+     */
+    public long getInlineCount() {
+        return inline.get();
+    }
+
+    /**
+     * 导出为文本
+     */
+    @NonNull
+    public String dump() {
+        return "parse threads=" + threads + " capacity=" + capacity + " depth=" + depth.get()
+                + " peak=" + peakDepth.get() + " active=" + pool.getActiveCount()
+                + " submitted=" + submitted.get() + " inline=" + inline.get();
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import com.alibaba.fastjson.JSON;
+
+import java.io.StringReader;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 一次成功解析的结果快照，供合并请求、ETag与内存缓存复用
+ * 快照持有一份不交给任何接收者的原本，每个接收者拿到各自独立的副本，互不影响对副本的修改
+ * 数据或集合元素为不可变类型时直接共享，不做复制
+ *
+ * @version 1.0
+ */
+
+final class Parsed {
+
+    // 回调种类
+    final Class<?> kind;
+    // 数据泛型类型，集合回调为元素类型
+    final Type type;
+    // 分页标记
+    final String sid;
+    // 附加数据，不可变
+    final Extra extra;
+    // 原本，只用于复制
+    private final Object master;
+    // 主数据是否为集合，按元素复制
+    private final boolean list;
+    // 数据或元素不可修改，可以共享
+    private final boolean immutable;
+    // 预先复制的副本，取走后在后台补充，命中内存缓存时无需在调用线程复制
+    private final AtomicReference<Object> spare = new AtomicReference<>();
+
+    /**
+     * @param entity    本次解析结果，在投递前复制为原本
+     * @param list      entity是否为type元素的集合
+     */
+    @WorkerThread
+    Parsed(@NonNull Class<?> kind, Type type, Object entity, boolean list, String sid,
+           Extra extra) {
+        this.kind = kind;
+        this.type = type;
+        this.list = list;
+        this.immutable = isImmutable(type);
+        this.sid = sid;
+        this.extra = extra;
+        this.master = null == entity ? null : copyOf(entity);
+    }
+
+    /**
+     * 是否可由指定种类和类型的回调复用
+     */
+    boolean matches(@NonNull Class<?> kind, Type type) {
+        return this.kind == kind && (null == this.type ? null == type : this.type.equals(type));
+    }
+
+    /**
+     * 是否没有主数据，如无数据回调
+     */
+    boolean isEmpty() {
+        return null == master;
+    }
+
+    /**
+     * 在当前线程复制一份主数据
+     */
+    @Nullable
+    @WorkerThread
+    Object copy() {
+        return null == master ? null : copyOf(master);
+    }
+
+    /**
+     * 取走预先复制的副本，在后台补充下一份；不需要复制时直接返回
+     * @return  null, 副本尚未备好，需在工作线程调用{@link #copy()}
+     */
+    @Nullable
+    Object take() {
+        if (null == master || immutable && !list) {
+            return master;
+        }
+        if (immutable) {
+            // 不可变元素只复制集合本身
+            return new ArrayList<>((List<?>) master);
+        }
+        Object value = spare.getAndSet(null);
+        if (null != value) {
+            prepare();
+        }
+        return value;
+    }
+
+    /**
+     * 在后台备好一份副本
+     */
+    void prepare() {
+        if (null == master || immutable) {
+            return;
+        }
+        HttpExecutors.background().execute(() -> {
+            if (null == spare.get()) {
+                spare.compareAndSet(null, copyOf(master));
+            }
+        });
+    }
+
+    /**
+     * 经JSON文本深复制，集合逐个元素按元素类型绑定
+     */
+    @NonNull
+    private Object copyOf(@NonNull Object source) {
+        if (list) {
+            List<?> items = (List<?>) source;
+            if (immutable) {
+                return new ArrayList<>(items);
+            }
+            List<Object> copies = new ArrayList<>(items.size());
+            ResponseReader reader = new ResponseReader(
+                    new StringReader(JSON.toJSONString(items)));
+            reader.startArray();
+            while (reader.hasNext()) {
+                copies.add(reader.readObject(type));
+            }
+            reader.endArray();
+            reader.close();
+            return copies;
+        }
+        return immutable ? source : JSON.parseObject(JSON.toJSONString(source), type);
+    }
+
+    /**
+     * 字符串、数值、基本类型包装类与枚举不可修改，可以共享
+     */
+    private static boolean isImmutable(Type type) {
+        if (!(type instanceof Class)) {
+            return false;
+        }
+        Class<?> clazz = (Class<?>) type;
+        return String.class == clazz || Integer.class == clazz || Long.class == clazz
+                || Double.class == clazz || Float.class == clazz || Short.class == clazz
+                || Byte.class == clazz || Boolean.class == clazz || Character.class == clazz
+                || BigDecimal.class == clazz || BigInteger.class == clazz || clazz.isEnum();
+    }
+
+}
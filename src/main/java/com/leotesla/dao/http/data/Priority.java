@@ -0,0 +1,20 @@
+package com.leotesla.dao.http.data;
+
+/**
+ * 请求优先级，按声明顺序由高到低
+ *
+ * @version 1.0
+ */
+
+public enum Priority {
+
+    // 用户正在等待的请求，不受槽位限制
+    INTERACTIVE,
+    // 普通请求
+    NORMAL,
+    // 后台刷新
+    BACKGROUND,
+    // 预取
+    PREFETCH
+
+}
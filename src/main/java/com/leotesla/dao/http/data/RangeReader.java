@@ -0,0 +1,78 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.io.Reader;
+
+/**
+ * 按区段读取字符串，区段间可插入短文本，不复制原字符串
+ * 用于把响应体的一部分直接交给读取器，避免substring与拼接产生整段副本
+ *
+ * @version 1.0
+ */
+
+final class RangeReader extends Reader {
+
+    // 依次读取parts[i]的[starts[i], ends[i])
+    private final String[] parts;
+    private final int[] starts;
+    private final int[] ends;
+    private int index;
+    private int pos;
+
+    private RangeReader(@NonNull String[] parts, @NonNull int[] starts, @NonNull int[] ends) {
+        this.parts = parts;
+        this.starts = starts;
+        this.ends = ends;
+        this.pos = starts[0];
+    }
+
+    /**
+     * 读取text[from, to)，前后各加一段文本
+     */
+    @NonNull
+    static RangeReader wrap(@NonNull String text, int from, int to,
+                            @NonNull String before, @NonNull String after) {
+        return new RangeReader(new String[]{before, text, after},
+                new int[]{0, from, 0}, new int[]{before.length(), to, after.length()});
+    }
+
+    /**
+     * 读取text，其中[from, to)替换为replacement
+     */
+    @NonNull
+    static RangeReader replace(@NonNull String text, int from, int to,
+                               @NonNull String replacement) {
+        return new RangeReader(new String[]{text, replacement, text},
+                new int[]{0, 0, to}, new int[]{from, replacement.length(), text.length()});
+    }
+
+    @Override
+    public int read(@NonNull char[] buffer, int offset, int length) {
+        if (0 == length) {
+            return 0;
+        }
+        int count = 0;
+        while (count < length && index < parts.length) {
+            int available = ends[index] - pos;
+            if (0 >= available) {
+                if (++index < parts.length) {
+                    pos = starts[index];
+                }
+                continue;
+            }
+            int n = Math.min(available, length - count);
+            parts[index].getChars(pos, pos + n, buffer, offset + count);
+            pos += n;
+            count += n;
+        }
+
+        return 0 == count ? -1 : count;
+    }
+
+    @Override
+    public void close() {
+        index = parts.length;
+    }
+
+}
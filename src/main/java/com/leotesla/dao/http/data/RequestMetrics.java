@@ -0,0 +1,260 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 请求耗时统计，按接口汇总各阶段耗时的对数直方图
+ * 记录只做原子累加，不分配对象；单个请求的完整时间点可通过监听器获取
+ *
+ * @version 1.0
+ */
+
+public final class RequestMetrics {
+
+    /**
+     * 请求结束时回调，在投递线程执行，不应做耗时操作
+     */
+    public interface TraceListener {
+
+        void onTrace(@NonNull RequestTrace trace);
+
+    }
+
+    // 统计项
+    public static final int QUEUE = 0;
+    public static final int NETWORK = 1;
+    public static final int PARSE_QUEUE = 2;
+    public static final int PARSE = 3;
+    public static final int DELIVERY = 4;
+    public static final int TOTAL = 5;
+    private static final int METRICS = 6;
+    private static final String[] METRIC_NAMES = {"queue", "network", "parse_queue", "parse",
+            "delivery", "total"};
+    // 直方图桶数，第0桶小于1ms，第i桶为[2^(i-1), 2^i)ms，最后一桶不设上限
+    public static final int BUCKETS = 16;
+    // 超出后的接口合并统计，防止地址中带参数导致无限增长
+    private static final String OTHER = "other";
+
+    private final int maxEndpoints;
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile TraceListener listener;
+
+    /**
+     * @param maxEndpoints  单独统计的接口数上限
+     */
+    public RequestMetrics(int maxEndpoints) {
+        this.maxEndpoints = maxEndpoints;
+    }
+
+    public void setListener(@Nullable TraceListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 开始记录请求
+     * @param url   请求地址，去掉参数部分作为接口名
+     */
+    @NonNull
+    public RequestTrace start(@NonNull String url) {
+        int query = url.indexOf('?');
+        return new RequestTrace(this, -1 == query ? url : url.substring(0, query));
+    }
+
+    void record(@NonNull RequestTrace trace) {
+        endpoint(trace.getEndpoint()).add(trace);
+        TraceListener listener = this.listener;
+        if (null != listener) {
+            listener.onTrace(trace);
+        }
+    }
+
+    @NonNull
+    private Endpoint endpoint(@NonNull String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (null == endpoint) {
+            if (endpoints.size() >= maxEndpoints) {
+                name = OTHER;
+            }
+            Endpoint created = new Endpoint(name);
+            endpoint = endpoints.putIfAbsent(name, created);
+            if (null == endpoint) {
+                endpoint = created;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * 指定接口的统计
+     */
+    @Nullable
+    public Endpoint get(@NonNull String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * 所有接口的统计，按名称排序
+     */
+    @NonNull
+    public List<Endpoint> getEndpoints() {
+        List<Endpoint> list = new ArrayList<>(endpoints.values());
+        Collections.sort(list, (a, b) -> a.name.compareTo(b.name));
+        return list;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * 导出为文本，每个接口一行，各阶段为p50/p90/p99上界，毫秒
+     */
+    @NonNull
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        for (Endpoint endpoint : getEndpoints()) {
+            builder.append(endpoint.name)
+                    .append(" n=").append(endpoint.getCount())
+                    .append(" chars=").append(endpoint.getChars());
+            char separator = '=';
+            builder.append(" source");
+            for (RequestTrace.Source source : RequestTrace.Source.values()) {
+                builder.append(separator).append(source.name().toLowerCase(Locale.US))
+                        .append(':').append(endpoint.getSourceCount(source));
+                separator = ',';
+            }
+            separator = '=';
+            builder.append(" outcome");
+            for (RequestTrace.Outcome outcome : RequestTrace.Outcome.values()) {
+                builder.append(separator).append(outcome.name().toLowerCase(Locale.US))
+                        .append(':').append(endpoint.getOutcomeCount(outcome));
+                separator = ',';
+            }
+            for (int metric = 0; metric < METRICS; metric++) {
+                builder.append(' ').append(METRIC_NAMES[metric]).append('=')
+                        .append(endpoint.percentile(metric, 0.5)).append('/')
+                        .append(endpoint.percentile(metric, 0.9)).append('/')
+                        .append(endpoint.percentile(metric, 0.99));
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 桶序号
+     */
+    private static int bucket(long nanos) {
+        long millis = nanos / 1000000;
+        return millis <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(millis));
+    }
+
+    /**
+     * 单个接口的统计
+     */
+    public static final class Endpoint {
+
+        private final String name;
+        private final AtomicLongArray histograms = new AtomicLongArray(METRICS * BUCKETS);
+        private final AtomicLongArray sources = new AtomicLongArray(RequestTrace.Source.values().length);
+        private final AtomicLongArray outcomes = new AtomicLongArray(RequestTrace.Outcome.values().length);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong chars = new AtomicLong();
+
+        private Endpoint(@NonNull String name) {
+            this.name = name;
+        }
+
+        private void add(@NonNull RequestTrace trace) {
+            count.incrementAndGet();
+            if (0 < trace.getSize()) {
+                chars.addAndGet(trace.getSize());
+            }
+            sources.incrementAndGet(trace.getSource().ordinal());
+            outcomes.incrementAndGet(trace.getOutcome().ordinal());
+            add(QUEUE, trace.elapsed(RequestTrace.ENQUEUE, RequestTrace.SEND));
+            add(NETWORK, trace.elapsed(RequestTrace.SEND, RequestTrace.RESPONSE));
+            add(PARSE_QUEUE, trace.elapsed(RequestTrace.RESPONSE, RequestTrace.PARSE_START));
+            add(PARSE, trace.elapsed(RequestTrace.PARSE_START, RequestTrace.PARSE_END));
+            // 投递等待从最后一个已经过的阶段算起
+            int last = RequestTrace.PARSE_END;
+            while (last > RequestTrace.ENQUEUE && 0 == trace.getTime(last)) {
+                last--;
+            }
+            add(DELIVERY, trace.elapsed(last, RequestTrace.DELIVERED));
+            add(TOTAL, trace.elapsed(RequestTrace.ENQUEUE, RequestTrace.DELIVERED));
+        }
+
+        private void add(int metric, long nanos) {
+            if (0 <= nanos) {
+                histograms.incrementAndGet(metric * BUCKETS + bucket(nanos));
+            }
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * 响应体字符数合计，非字节数；流式解析的响应不计入
+         */
+        public long getChars() {
+            return chars.get();
+        }
+
+        public long getSourceCount(@NonNull RequestTrace.Source source) {
+            return sources.get(source.ordinal());
+        }
+
+        public long getOutcomeCount(@NonNull RequestTrace.Outcome outcome) {
+            return outcomes.get(outcome.ordinal());
+        }
+
+        /**
+         * 直方图桶计数
+         * @param metric    统计项，如{@link RequestMetrics#NETWORK}
+         * @param bucket    桶序号，0 ~ {@link #BUCKETS} - 1
+         */
+        public long getBucket(int metric, int bucket) {
+            return histograms.get(metric * BUCKETS + bucket);
+        }
+
+        /**
+         * 分位数所在桶的上界，毫秒
+         * @return  -1, 无数据
+         */
+        public long percentile(int metric, double p) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += getBucket(metric, i);
+            }
+            if (0 == total) {
+                return -1;
+            }
+            long target = (long) Math.ceil(total * p), seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += getBucket(metric, i);
+                if (seen >= target) {
+                    return 1L << i;
+                }
+            }
+            return 1L << (BUCKETS - 1);
+        }
+
+    }
+
+}
@@ -0,0 +1,194 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按优先级分道的请求调度器，限制同时交给引擎的请求数
+ * 高优先级道有排队时低优先级道不发起；交互请求不受槽位限制，总能立即发起
+ * 请求结束、取消或占用超时都会释放槽位，同一请求只释放一次
+ *
+ * @version 1.0
+ */
+
+public final class RequestScheduler {
+
+    // 默认槽位占用上限，超过后视为引擎不再回调，收回槽位
+    private static final long DEFAULT_SLOT_TIMEOUT = TimeUnit.SECONDS.toMillis(60);
+
+    // 各道可占用的槽位上限
+    private final int[] limits;
+    // 各道排队的请求
+    private final List<ArrayDeque<Task>> lanes;
+    // 已交给引擎的请求及发起时刻，System.nanoTime
+    private final Map<CallbackBase<?>, Long> running = new IdentityHashMap<>();
+    // 槽位占用上限，纳秒
+    private final long slotTimeout;
+
+    /**
+     * @param maxSlots  非交互请求可同时占用的槽位数
+     */
+    public RequestScheduler(int maxSlots) {
+        this(maxSlots, DEFAULT_SLOT_TIMEOUT);
+    }
+
+    /**
+     * @param maxSlots      非交互请求可同时占用的槽位数
+     * @param slotTimeout   单个请求占用槽位的上限，毫秒，超过后有请求排队时收回
+     */
+    public RequestScheduler(int maxSlots, long slotTimeout) {
+        Priority[] priorities = Priority.values();
+        this.limits = new int[priorities.length];
+        this.lanes = new ArrayList<>(priorities.length);
+        for (int i = 0; i < priorities.length; i++) {
+            this.lanes.add(new ArrayDeque<>());
+        }
+        this.limits[Priority.INTERACTIVE.ordinal()] = Integer.MAX_VALUE;
+        this.limits[Priority.NORMAL.ordinal()] = maxSlots;
+        this.limits[Priority.BACKGROUND.ordinal()] = Math.max(1, maxSlots / 2);
+        this.limits[Priority.PREFETCH.ordinal()] = 1;
+        this.slotTimeout = TimeUnit.MILLISECONDS.toNanos(slotTimeout);
+    }
+
+    /**
+     * 提交请求，槽位空闲时立即在当前线程发起
+     * @param callback  回调，结束时释放槽位
+     * @param start     实际发起请求
+     */
+    public void submit(@NonNull CallbackBase<?> callback, @NonNull Runnable start) {
+        callback.occupy(this);
+        synchronized (this) {
+            lanes.get(callback.getPriority().ordinal()).add(new Task(callback, start));
+        }
+        drain();
+    }
+
+    /**
+     * 将排队中的请求提升到更高优先级道
+     */
+    void promote(@NonNull CallbackBase<?> callback, @NonNull Priority priority) {
+        boolean moved = false;
+        synchronized (this) {
+            for (int i = priority.ordinal() + 1; i < lanes.size() && !moved; i++) {
+                Iterator<Task> iterator = lanes.get(i).iterator();
+                while (iterator.hasNext()) {
+                    Task task = iterator.next();
+                    if (task.callback == callback) {
+                        iterator.remove();
+                        lanes.get(priority.ordinal()).add(task);
+                        moved = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (moved) {
+            drain();
+        }
+    }
+
+    /**
+     * 移除尚未发起的请求
+     * @return  false, 已发起或不在队列中
+     */
+    synchronized boolean remove(@NonNull CallbackBase<?> callback) {
+        for (ArrayDeque<Task> lane : lanes) {
+            Iterator<Task> iterator = lane.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().callback == callback) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 请求结束或取消，释放其槽位；已释放或已超时收回时忽略
+     */
+    void release(@NonNull CallbackBase<?> callback) {
+        synchronized (this) {
+            if (null == running.remove(callback)) {
+                return;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 按优先级发起可以占用槽位的请求
+     */
+    private void drain() {
+        while (true) {
+            Task task = null;
+            synchronized (this) {
+                for (int i = 0; i < lanes.size(); i++) {
+                    ArrayDeque<Task> lane = lanes.get(i);
+                    if (!lane.isEmpty()) {
+                        if (running.size() >= limits[i]) {
+                            reclaimExpired();
+                        }
+                        if (running.size() < limits[i]) {
+                            task = lane.poll();
+                            running.put(task.callback, System.nanoTime());
+                        }
+                        break;
+                    }
+                }
+            }
+            if (null == task) {
+                return;
+            }
+            task.callback.mark(RequestTrace.SEND);
+            task.start.run();
+        }
+    }
+
+    /**
+     * 收回占用超时的槽位，请求本身不受影响，其后的释放被忽略
+     */
+    private void reclaimExpired() {
+        long now = System.nanoTime();
+        Iterator<Long> iterator = running.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next() >= slotTimeout) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * 指定优先级道的排队深度
+     */
+    public synchronized int getQueueDepth(@NonNull Priority priority) {
+        return lanes.get(priority.ordinal()).size();
+    }
+
+    /**
+     * 已交给引擎的请求数
+     */
+    public synchronized int getRunningCount() {
+        return running.size();
+    }
+
+    private final static class Task {
+
+        private final CallbackBase<?> callback;
+        private final Runnable start;
+
+        private Task(@NonNull CallbackBase<?> callback, @NonNull Runnable start) {
+            this.callback = callback;
+            this.start = start;
+        }
+
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单个请求各阶段的时间点，纳秒
+ * 排队: ENQUEUE-SEND，网络: SEND-RESPONSE，解析排队: RESPONSE-PARSE_START，解析: PARSE_START-PARSE_END，
+ * 投递等待: 之前阶段-DELIVERED
+ * 分批投递时解析结束以首次投递为准
+ * Note: 引擎未暴露首字节时间，RESPONSE为响应体接收完成、回调开始的时间
+ *
+ * @version 1.0
+ */
+
+public final class RequestTrace {
+
+    // 进入客户端
+    public static final int ENQUEUE = 0;
+    // 调度器交给引擎
+    public static final int SEND = 1;
+    // 引擎回调，响应体已完整
+    public static final int RESPONSE = 2;
+    // 解析开始与结束
+    public static final int PARSE_START = 3;
+    public static final int PARSE_END = 4;
+    // 回调线程开始投递
+    public static final int DELIVERED = 5;
+    static final int PHASES = 6;
+
+    /**
+     * 结果来源
+     */
+    public enum Source {
+        // 网络或引擎磁盘缓存
+        NETWORK,
+        // 已解析对象内存缓存
+        MEMORY,
+        // 服务端未修改，复用上次解析结果
+        NOT_MODIFIED,
+        // 合并到进行中的相同请求
+        COALESCED
+    }
+
+    /**
+     * 请求结果
+     */
+    public enum Outcome {
+        SUCCESS,
+        FAILED,
+        // 被取消或投递Handler已失效，未投递
+        DROPPED
+    }
+
+    private final RequestMetrics metrics;
+    private final String endpoint;
+    // 各阶段分别在调用线程、网络线程、解析线程和回调线程记录
+    private final AtomicLongArray times = new AtomicLongArray(PHASES);
+    private volatile Source source = Source.NETWORK;
+    private volatile Outcome outcome = Outcome.SUCCESS;
+    // 响应体字符数，未知时为-1
+    private volatile long size = -1;
+
+    RequestTrace(@NonNull RequestMetrics metrics, @NonNull String endpoint) {
+        this.metrics = metrics;
+        this.endpoint = endpoint;
+        mark(ENQUEUE);
+    }
+
+    void mark(int phase) {
+        times.set(phase, System.nanoTime());
+    }
+
+    void setSource(@NonNull Source source) {
+        this.source = source;
+    }
+
+    void setOutcome(@NonNull Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    void setSize(long size) {
+        this.size = size;
+    }
+
+    /**
+     * 汇总到统计
+     */
+    void report() {
+        metrics.record(this);
+    }
+
+    @NonNull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * 阶段时间点，未经过该阶段时为0
+     */
+    public long getTime(int phase) {
+        return times.get(phase);
+    }
+
+    /**
+     * 两个阶段间的耗时，纳秒
+     * @return  -1, 任一阶段未经过
+     */
+    public long elapsed(int from, int to) {
+        long start = times.get(from), end = times.get(to);
+        return 0 == start || 0 == end ? -1 : end - start;
+    }
+
+    @NonNull
+    public Source getSource() {
+        return source;
+    }
+
+    @NonNull
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.leotesla.dao.http.data;
+
+import com.alibaba.fastjson.JSONException;
+import com.alibaba.fastjson.JSONReader;
+import com.alibaba.fastjson.parser.DefaultJSONParser;
+import com.alibaba.fastjson.parser.JSONLexer;
+import com.alibaba.fastjson.parser.JSONReaderScanner;
+import com.alibaba.fastjson.parser.JSONToken;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.parser.deserializer.ObjectDeserializer;
+
+import java.io.Reader;
+import java.lang.reflect.Type;
+
+/**
+ * 响应流式读取器，在{@link JSONReader}基础上支持预判下一个值的类型
+ *
+ * @version 1.0
+ */
+
+public final class ResponseReader extends JSONReader {
+
+    private final JSONLexer lexer;
+
+    /**
+     * 跳过的值，只逐词法单元前进，不生成对象
+     */
+    private static final class Skipped implements ObjectDeserializer {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T deserialze(DefaultJSONParser parser, Type type, Object fieldName) {
+            JSONLexer lexer = parser.getLexer();
+            int depth = 0;
+            do {
+                switch (lexer.token()) {
+                    case JSONToken.LBRACE:
+                    case JSONToken.LBRACKET:
+                        depth++;
+                        break;
+                    case JSONToken.RBRACE:
+                    case JSONToken.RBRACKET:
+                        depth--;
+                        break;
+                    case JSONToken.EOF:
+                        throw new JSONException("unclosed value");
+                    default:
+                        break;
+                }
+                lexer.nextToken();
+            } while (0 < depth);
+            return null;
+        }
+
+        @Override
+        public int getFastMatchToken() {
+            return 0;
+        }
+
+    }
+
+    static {
+        ParserConfig.getGlobalInstance().putDeserializer(Skipped.class, new Skipped());
+    }
+
+    ResponseReader(Reader reader) {
+        this(new JSONReaderScanner(reader));
+    }
+
+    private ResponseReader(JSONLexer lexer) {
+        super(lexer);
+        this.lexer = lexer;
+    }
+
+    /**
+     * 跳过下一个值，不生成对象
+     */
+    public void skipValue() {
+        readObject((Type) Skipped.class);
+    }
+
+    /**
+     * 预判下一个值的类型，不消费任何内容
+     * Note: 读取字段名后词法器停留在冒号处，{@link #peek()}无法反映值类型
+     *
+     * @return {@link JSONToken}中的值类型
+     */
+    public int peekValue() {
+        int token = lexer.token();
+        if (JSONToken.COLON != token && JSONToken.COMMA != token) {
+            return token;
+        }
+        lexer.skipWhitespace();
+        switch (lexer.getCurrent()) {
+            case '{':
+                return JSONToken.LBRACE;
+            case '[':
+                return JSONToken.LBRACKET;
+            case '"':
+            case '\'':
+                return JSONToken.LITERAL_STRING;
+            case 'n':
+                return JSONToken.NULL;
+            default:
+                return JSONToken.ERROR;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进行中请求合并表，相同标识的请求只发起一次网络交换并共享解析结果
+ *
+ * @version 1.0
+ */
+
+public final class SingleFlight {
+
+    // 进行中请求，值为发起网络请求的回调
+    private final Map<Object, CallbackBase<?>> flights = new HashMap<>();
+    // 实际发起的请求数
+    private final AtomicLong issued = new AtomicLong();
+    // 被合并的请求数
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * 加入请求
+     * @param key       请求标识，需实现equals与hashCode
+     * @param callback  回调
+     * @return          true, 已合并到进行中的相同请求，无需再发起; false, 需要由调用方发起请求
+     */
+    public boolean join(@NonNull Object key, @NonNull CallbackBase<?> callback) {
+        CallbackBase<?> leader;
+        synchronized (flights) {
+            leader = flights.get(key);
+            if (null == leader || leader == callback || !leader.attach(callback)) {
+                leader = null;
+                callback.lead(this, key);
+                flights.put(key, callback);
+            } else {
+                // 持有锁时发起者无法结束，来源先于投递确定
+                callback.traceSource(RequestTrace.Source.COALESCED);
+            }
+        }
+        if (null == leader) {
+            issued.incrementAndGet();
+            return false;
+        }
+        coalesced.incrementAndGet();
+        // 排队中的发起者按最高优先级的跟随者调度
+        leader.raise(callback.getPriority());
+        return true;
+    }
+
+    /**
+     * 请求结束，之后的相同请求将重新发起
+     */
+    void settle(@NonNull Object key, @NonNull CallbackBase<?> leader) {
+        synchronized (flights) {
+            if (leader == flights.get(key)) {
+                flights.remove(key);
+            }
+        }
+    }
+
+    /**
+     * 当前进行中的请求数
+     */
+    public int getInFlightCount() {
+        synchronized (flights) {
+            return flights.size();
+        }
+    }
+
+    /**
+     * 实际发起的请求数
+     */
+    public long getIssuedCount() {
+        return issued.get();
+    }
+
+    /**
+     * 被合并而未发起的请求数
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+}
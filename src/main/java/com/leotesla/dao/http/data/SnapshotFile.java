@@ -0,0 +1,99 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * 二进制快照文件读写，写入时先写临时文件再改名，中途失败不破坏原文件
+ *
+ * @version 1.0
+ */
+
+public final class SnapshotFile {
+
+    /**
+     * 读取快照内容
+     */
+    public interface Reader {
+        void read(@NonNull DataInputStream in) throws IOException;
+    }
+
+    /**
+     * 写入快照内容
+     */
+    public interface Writer {
+        void write(@NonNull DataOutputStream out) throws IOException;
+    }
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * 读取快照，文件不存在时不读取
+     */
+    @WorkerThread
+    public static void read(@NonNull File file, @NonNull Reader reader) {
+        if (!file.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            reader.read(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * 写入快照
+     * @return  false, 写入失败，原文件保持不变
+     */
+    @WorkerThread
+    public static boolean write(@NonNull File file, @NonNull Writer writer) {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            File parent = file.getParentFile();
+            if (null != parent && !parent.exists() && !parent.mkdirs()) {
+                return false;
+            }
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            writer.write(out);
+            out.close();
+            out = null;
+            if (temp.renameTo(file)) {
+                return true;
+            }
+            temp.delete();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(out);
+        }
+        return false;
+    }
+
+    public static void closeQuietly(@Nullable Closeable closeable) {
+        if (null != closeable) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+}
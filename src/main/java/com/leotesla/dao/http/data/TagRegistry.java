@@ -0,0 +1,96 @@
+package com.leotesla.dao.http.data;
+
+import android.support.annotation.NonNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * 进行中请求按标识登记，可按标识批量取消
+ * 回调同时登记在自身的tag和投递Handler下，页面销毁时按任一标识取消即可；投递Handler退出时自动取消
+ * Note: 标识和回调均为弱引用，进行中的回调由引擎持有，登记不延长页面的生命周期
+ *
+ * @version 1.0
+ */
+
+public final class TagRegistry {
+
+    // 标识对应的进行中回调
+    private final Map<Object, Set<CallbackBase<?>>> tags = new WeakHashMap<>();
+    // 投递Handler退出时取消其下的请求
+    private final Liveness.OnExitListener exitListener = this::cancelAll;
+
+    /**
+     * 登记回调，请求结束时自动注销
+     */
+    public void register(@NonNull CallbackBase<?> callback) {
+        Object[] keys = callback.cancelKeys();
+        if (0 == keys.length) {
+            return;
+        }
+        synchronized (tags) {
+            for (Object key : keys) {
+                Set<CallbackBase<?>> callbacks = tags.get(key);
+                if (null == callbacks) {
+                    // 回调未覆写equals，按实例区分
+                    callbacks = Collections.newSetFromMap(new WeakHashMap<>());
+                    tags.put(key, callbacks);
+                }
+                callbacks.add(callback);
+            }
+        }
+        callback.registerTo(this);
+        for (Object key : keys) {
+            if (key instanceof Liveness) {
+                ((Liveness) key).addOnExitListener(exitListener);
+            }
+        }
+    }
+
+    /**
+     * 注销回调
+     */
+    void unregister(@NonNull CallbackBase<?> callback) {
+        synchronized (tags) {
+            for (Object key : callback.cancelKeys()) {
+                Set<CallbackBase<?>> callbacks = tags.get(key);
+                if (null != callbacks && callbacks.remove(callback) && callbacks.isEmpty()) {
+                    tags.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * 取消标识下所有进行中的请求，被取消的请求不再解析也不再回调
+     * @param tag   回调的tag或投递Handler
+     * @return      取消的请求数
+     */
+    public int cancelAll(@NonNull Object tag) {
+        CallbackBase<?>[] callbacks;
+        synchronized (tags) {
+            Set<CallbackBase<?>> registered = tags.remove(tag);
+            if (null == registered) {
+                return 0;
+            }
+            callbacks = registered.toArray(new CallbackBase<?>[registered.size()]);
+        }
+        for (CallbackBase<?> callback : callbacks) {
+            unregister(callback);
+            callback.cancel();
+        }
+        return callbacks.length;
+    }
+
+    /**
+     * 已登记的标识数
+     */
+    public int size() {
+        synchronized (tags) {
+            return tags.size();
+        }
+    }
+
+}
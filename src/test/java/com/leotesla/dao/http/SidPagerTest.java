@@ -0,0 +1,176 @@
+package com.leotesla.dao.http;
+
+import com.leotesla.dao.http.data.ClientSidArrayCallback;
+import com.leotesla.dao.http.data.Extra;
+import com.leotesla.dao.http.data.Priority;
+import com.leotesla.httpclient.ClientError;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * sid分页器：游标推进、预取、末页判断与按元素数淘汰
+ * 回调直接在测试线程调用，不经引擎
+ *
+ * @version 1.0
+ */
+public class SidPagerTest {
+
+    // 额外信息只透传，测试不构造
+    private static final Extra EXTRA = null;
+
+    // 按游标记录进行中的请求
+    private final Map<String, ClientSidArrayCallback<String>> requests = new LinkedHashMap<>();
+    private final List<String> events = new ArrayList<>();
+    private SidPager<String> pager;
+
+    @Before
+    public void setUp() {
+        requests.clear();
+        events.clear();
+        pager = new SidPager<>((sid, callback) -> requests.put(sid, callback), String.class, 4);
+        pager.setListener(new SidPager.Listener<String>() {
+            @Override
+            public void onPage(int index, List<String> data, Extra extra) {
+                events.add("page" + index + data);
+            }
+
+            @Override
+            public boolean onError(int index, ClientError error) {
+                events.add("error" + index);
+                return true;
+            }
+        });
+    }
+
+    private void succeed(String sid, String next, String... items) {
+        ClientSidArrayCallback<String> callback = requests.remove(sid);
+        assertNotNull("no request for sid " + sid, callback);
+        callback.onSuccess(next, Arrays.asList(items), EXTRA);
+    }
+
+    private boolean fail(String sid) {
+        ClientSidArrayCallback<String> callback = requests.remove(sid);
+        assertNotNull("no request for sid " + sid, callback);
+        return callback.onError(new ClientError(ClientError.EXCEPTION_CLIENT,
+                ClientError.NET_EXCEPTION, "offline"));
+    }
+
+    @Test
+    public void firstPageThenPrefetch() {
+        pager.request(0);
+        assertEquals(Priority.INTERACTIVE, requests.get("").getPriority());
+        succeed("", "s1", "a", "b");
+        assertEquals(Collections.singletonList("page0[a, b]"), events);
+        // 交付后以预取优先级请求下一页
+        assertEquals(Priority.PREFETCH, requests.get("s1").getPriority());
+        assertEquals(2, pager.getKnownPageCount());
+        assertEquals(1, pager.getCachedPageCount());
+        assertEquals(2, pager.getCachedItemCount());
+    }
+
+    @Test
+    public void prefetchedPageIsDeliveredImmediately() {
+        pager.request(0);
+        succeed("", "s1", "a");
+        succeed("s1", "s2", "b");
+        // 预取完成时不交付
+        assertEquals(1, events.size());
+        pager.request(1);
+        assertEquals("page1[b]", events.get(1));
+        assertTrue(requests.containsKey("s2"));
+    }
+
+    @Test
+    public void requestingPrefetchRaisesPriority() {
+        pager.request(0);
+        succeed("", "s1", "a");
+        ClientSidArrayCallback<String> prefetch = requests.get("s1");
+        pager.request(1);
+        // 不重复请求
+        assertSame(prefetch, requests.get("s1"));
+        assertEquals(Priority.INTERACTIVE, prefetch.getPriority());
+        succeed("s1", "s2", "b");
+        assertEquals("page1[b]", events.get(1));
+    }
+
+    @Test
+    public void unknownCursorIsIgnored() {
+        pager.request(1);
+        pager.request(-1);
+        assertTrue(requests.isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void emptyPageOrSameCursorEnds() {
+        pager.request(0);
+        succeed("", "s1", "a");
+        succeed("s1", "s1", "b");
+        assertTrue(pager.isEnd());
+        assertEquals(2, pager.getKnownPageCount());
+
+        pager.reset();
+        assertFalse(pager.isEnd());
+        pager.request(0);
+        succeed("", "s1");
+        assertTrue(pager.isEnd());
+        assertEquals(1, pager.getKnownPageCount());
+    }
+
+    @Test
+    public void trimEvictsFarthestPageAndKeepsCursor() {
+        pager.request(0);
+        succeed("", "s1", "a", "b");
+        succeed("s1", "s2", "c", "d");
+        pager.request(1);
+        succeed("s2", "s3", "e", "f");
+        // 超出4个元素，淘汰距当前页最远的第0页，保留当前页和下一页
+        assertEquals(2, pager.getCachedPageCount());
+        assertEquals(4, pager.getCachedItemCount());
+
+        pager.request(0);
+        // 按保留的游标重新请求
+        assertEquals(Priority.INTERACTIVE, requests.get("").getPriority());
+        succeed("", "s1", "a", "b");
+        assertEquals("page0[a, b]", events.get(events.size() - 1));
+        assertEquals(4, pager.getKnownPageCount());
+        assertEquals(4, pager.getCachedItemCount());
+    }
+
+    @Test
+    public void prefetchFailureIsSilent() {
+        pager.request(0);
+        succeed("", "s1", "a");
+        assertTrue(fail("s1"));
+        assertEquals(1, events.size());
+        // 请求到该页时重试
+        pager.request(1);
+        assertEquals(Priority.INTERACTIVE, requests.get("s1").getPriority());
+        assertTrue(fail("s1"));
+        assertEquals("error1", events.get(1));
+    }
+
+    @Test
+    public void resetStartsFromFirstPage() {
+        pager.request(0);
+        succeed("", "s1", "a");
+        pager.reset();
+        assertEquals(0, pager.getCachedPageCount());
+        assertEquals(0, pager.getCachedItemCount());
+        assertEquals(1, pager.getKnownPageCount());
+        requests.clear();
+        pager.request(0);
+        assertTrue(requests.containsKey(""));
+    }
+
+}
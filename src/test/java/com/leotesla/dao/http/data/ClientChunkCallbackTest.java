@@ -0,0 +1,181 @@
+package com.leotesla.dao.http.data;
+
+import com.leotesla.httpclient.ClientError;
+import com.leotesla.httpclient.ClientErrorHandler;
+import com.leotesla.httpclient.internal.HttpResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 增量交付：批次边界、中途取消、部分交付后出错
+ * 响应体直接交给回调解析，投递在测试线程执行
+ *
+ * @version 1.0
+ */
+public class ClientChunkCallbackTest {
+
+    public static class Item implements Serializable {
+        public int id;
+    }
+
+    // 错误不经全局处理，投递给回调
+    private static final ClientErrorHandler ERRORS = new ClientErrorHandler() {
+        @Override
+        public ClientError onHttpFailed(HttpResponse response) {
+            return null;
+        }
+
+        @Override
+        public boolean onDispatchError(ClientError error) {
+            return false;
+        }
+
+        @Override
+        public void onPostError(ClientError error) {
+        }
+    };
+
+    private final List<String> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        events.clear();
+    }
+
+    /**
+     * 记录回调顺序，批次记为各元素id
+     */
+    private class Recorder extends ClientChunkCallback<Item> {
+
+        // 收到第几批后取消，0为不取消
+        private final int cancelAfter;
+        private int chunks;
+
+        private Recorder(int chunkSize, int cancelAfter) {
+            super(ERRORS, null, chunkSize);
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        protected void post(Runnable action) {
+            action.run();
+        }
+
+        @Override
+        public void onChunk(List<Item> batch) {
+            StringBuilder ids = new StringBuilder();
+            for (Item item : batch) {
+                ids.append(0 == ids.length() ? "" : ",").append(item.id);
+            }
+            events.add("chunk[" + ids + "]");
+            if (++chunks == cancelAfter) {
+                cancel();
+            }
+        }
+
+        @Override
+        public void onComplete(Extra extra) {
+            events.add("complete" + extra);
+        }
+
+        @Override
+        public boolean onError(ClientError error) {
+            events.add("error");
+            return false;
+        }
+
+    }
+
+    private static String results(int count) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 1; i <= count; i++) {
+            builder.append(1 == i ? "" : ",").append("{\"id\":").append(i).append('}');
+        }
+        return builder.append(']').toString();
+    }
+
+    @Test
+    public void splitsIntoChunks() {
+        Recorder callback = new Recorder(2, 0);
+        assertTrue(callback.receive("{\"error\":0,\"data\":{\"results\":" + results(5)
+                + ",\"sid\":\"s1\"}}"));
+        assertEquals(Arrays.asList("chunk[1,2]", "chunk[3,4]", "chunk[5]",
+                "complete{\"sid\":\"s1\"}"), events);
+    }
+
+    @Test
+    public void exactMultipleHasNoTrailingChunk() {
+        Recorder callback = new Recorder(2, 0);
+        assertTrue(callback.receive("{\"error\":0,\"data\":" + results(4) + "}"));
+        assertEquals(Arrays.asList("chunk[1,2]", "chunk[3,4]", "complete"), events);
+    }
+
+    @Test
+    public void emptyResultsOnlyComplete() {
+        Recorder callback = new Recorder(3, 0);
+        assertTrue(callback.receive("{\"error\":0,\"data\":{\"results\":[]}}"));
+        assertEquals(Collections.singletonList("complete{}"), events);
+    }
+
+    @Test
+    public void errorAfterDataStillStreams() {
+        // data在error之前，状态码经扫描确认后同样逐批交付
+        Recorder callback = new Recorder(2, 0);
+        assertTrue(callback.receive("{\"data\":" + results(3) + ",\"error\":0}"));
+        assertEquals(Arrays.asList("chunk[1,2]", "chunk[3]", "complete"), events);
+    }
+
+    @Test
+    public void cancelStopsLaterChunks() {
+        Recorder callback = new Recorder(2, 1);
+        callback.receive("{\"error\":0,\"data\":{\"results\":" + results(6) + "}}");
+        // 取消后不再交付批次，也不回调结束或错误
+        assertEquals(Collections.singletonList("chunk[1,2]"), events);
+    }
+
+    @Test
+    public void canceledBeforeResponseDeliversNothing() {
+        Recorder callback = new Recorder(2, 0);
+        callback.cancel();
+        callback.receive("{\"error\":0,\"data\":{\"results\":" + results(3) + "}}");
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void malformedAfterPartialDataEndsWithError() {
+        Recorder callback = new Recorder(2, 0);
+        assertFalse(callback.receive("{\"error\":0,\"data\":{\"results\":[{\"id\":1},{\"id\":2},"
+                + "{\"id\":3},{\"id\":"));
+        // 已交付的批次保留，以错误结束，不回调onComplete
+        assertEquals(Arrays.asList("chunk[1,2]", "error"), events);
+    }
+
+    @Test
+    public void missingResultsEndsWithError() {
+        Recorder callback = new Recorder(2, 0);
+        assertFalse(callback.receive("{\"error\":0,\"data\":{\"sid\":\"s1\"}}"));
+        assertEquals(Collections.singletonList("error"), events);
+    }
+
+    @Test
+    public void serverErrorDeliversNoChunks() {
+        Recorder callback = new Recorder(2, 0);
+        assertFalse(callback.receive("{\"data\":" + results(3) + ",\"error\":7}"));
+        assertEquals(Collections.singletonList("error"), events);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveChunkSize() {
+        new Recorder(0, 0);
+    }
+
+}
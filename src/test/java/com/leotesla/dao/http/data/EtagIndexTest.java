@@ -0,0 +1,95 @@
+package com.leotesla.dao.http.data;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * ETag索引：持久化只保存资源摘要、解析结果按资源与ETag查找
+ *
+ * @version 1.0
+ */
+public class EtagIndexTest {
+
+    private static final String RESOURCE = "host/login?password=secret&username=leo";
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("etag", ".idx");
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /**
+     * 等待后台线程写完索引文件
+     */
+    private void awaitFile() throws InterruptedException {
+        for (int i = 0; i < 100 && !file.exists(); i++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(20);
+        assertTrue(file.exists());
+    }
+
+    @Test
+    public void persistsDigestOnly() throws Exception {
+        EtagIndex index = new EtagIndex(file, 8, 4);
+        index.put(RESOURCE, "W/\"1\"");
+        awaitFile();
+        String content = new String(Files.readAllBytes(file.toPath()),
+                Charset.forName("ISO-8859-1"));
+        assertFalse(content.contains("secret"));
+        assertFalse(content.contains("host/login"));
+        assertTrue(content.contains("W/\"1\""));
+
+        EtagIndex restored = new EtagIndex(file, 8, 4);
+        restored.loadAsync();
+        String etag = null;
+        for (int i = 0; i < 100 && null == etag; i++) {
+            Thread.sleep(10);
+            etag = restored.get(RESOURCE);
+        }
+        assertEquals("W/\"1\"", etag);
+        assertNull(restored.get("host/login?password=other&username=leo"));
+    }
+
+    @Test
+    public void resultsMatchResourceEtagAndType() {
+        EtagIndex index = new EtagIndex(file, 8, 4);
+        Parsed parsed = new Parsed(ClientArrayCallback.class, String.class,
+                Collections.singletonList("a"), true, null, Extra.EMPTY);
+        assertFalse(index.hasResult(RESOURCE, "W/\"1\""));
+        index.remember(RESOURCE, "W/\"1\"", parsed);
+        assertTrue(index.hasResult(RESOURCE, "W/\"1\""));
+        assertFalse(index.hasResult(RESOURCE, "W/\"2\""));
+        assertSame(parsed, index.find(RESOURCE, String.class, "W/\"1\""));
+        assertNull(index.find(RESOURCE, Integer.class, "W/\"1\""));
+    }
+
+    @Test
+    public void evictedResultsAreGone() {
+        EtagIndex index = new EtagIndex(file, 8, 2);
+        for (int i = 0; i < 3; i++) {
+            index.remember(RESOURCE + i, "W/\"1\"", new Parsed(ClientCallback.class,
+                    String.class, "v" + i, false, null, null));
+        }
+        // 超出保留数后最早的结果被淘汰，不应再以其ETag请求
+        assertFalse(index.hasResult(RESOURCE + 0, "W/\"1\""));
+        assertTrue(index.hasResult(RESOURCE + 2, "W/\"1\""));
+    }
+
+}
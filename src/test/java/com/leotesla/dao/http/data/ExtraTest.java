@@ -0,0 +1,138 @@
+package com.leotesla.dao.http.data;
+
+import com.alibaba.fastjson.JSONObject;
+import com.leotesla.httpclient.ClientError;
+import com.leotesla.httpclient.ClientErrorHandler;
+import com.leotesla.httpclient.internal.HttpResponse;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 附加数据：按原文记录、跳过结果集、访问互不影响、旧回调兼容
+ *
+ * @version 1.0
+ */
+public class ExtraTest {
+
+    public static class Item implements Serializable {
+        public int id;
+    }
+
+    public static class Paging implements Serializable {
+        public int total;
+        public String next;
+    }
+
+    private static final ClientErrorHandler ERRORS = new ClientErrorHandler() {
+        @Override
+        public ClientError onHttpFailed(HttpResponse response) {
+            return null;
+        }
+
+        @Override
+        public boolean onDispatchError(ClientError error) {
+            return false;
+        }
+
+        @Override
+        public void onPostError(ClientError error) {
+        }
+    };
+
+    @Test
+    public void keepsFieldsVerbatim() {
+        Extra extra = Extra.ofData("{ \"total\" : 3, \"results\":[{\"id\":1,\"s\":\"}]\"}],"
+                + "\"tags\":[\"a\", {\"b\":null}], \"next\":\"x\\\"y\"}", "results");
+        assertEquals("{\"total\" : 3,\"tags\":[\"a\", {\"b\":null}],\"next\":\"x\\\"y\"}",
+                extra.toString());
+        assertFalse(extra.isEmpty());
+    }
+
+    @Test
+    public void skipsSeveralFields() {
+        Extra extra = Extra.ofData("{\"sid\":\"s1\",\"results\":[],\"total\":2}",
+                "results", "sid");
+        assertEquals("{\"total\":2}", extra.toString());
+        assertEquals(2, extra.toJavaObject(Paging.class).total);
+    }
+
+    @Test
+    public void findsDataInBody() {
+        Extra extra = Extra.ofBody("{\"error\":0,\"data\":{\"results\":[1,2],\"next\":\"n\"}}",
+                "results");
+        assertEquals("{\"next\":\"n\"}", extra.toString());
+        assertSame(Extra.EMPTY, Extra.ofBody("{\"data\":{\"results\":[]},\"error\":0}",
+                "results"));
+        assertSame(Extra.EMPTY, Extra.ofBody(null, "results"));
+    }
+
+    @Test
+    public void emptyAndNone() {
+        assertTrue(Extra.EMPTY.isEmpty());
+        assertEquals("{}", Extra.EMPTY.toString());
+        assertNotNull(Extra.EMPTY.toJavaObject(Paging.class));
+        assertTrue(Extra.NONE.isEmpty());
+        assertEquals("", Extra.NONE.toString());
+        assertNull(Extra.NONE.toJavaObject(Paging.class));
+        assertNull(Extra.NONE.get("total"));
+    }
+
+    @Test
+    public void accessesAreIndependent() {
+        Extra extra = Extra.ofData("{\"results\":[],\"page\":{\"total\":1}}", "results");
+        JSONObject first = (JSONObject) extra.get("page");
+        first.put("total", 9);
+        assertEquals(1, ((JSONObject) extra.get("page")).getIntValue("total"));
+        Paging paging = extra.toJavaObject(Paging.class);
+        assertNotSame(paging, extra.toJavaObject(Paging.class));
+    }
+
+    @Test
+    public void deprecatedStringOverloadStillCalled() {
+        List<String> extras = new ArrayList<>();
+        ClientArrayCallback<Item> callback = new ClientArrayCallback<Item>(ERRORS, null) {
+            @Override
+            protected void post(Runnable action) {
+                action.run();
+            }
+
+            @Override
+            @SuppressWarnings("deprecation")
+            public void onSuccess(List<Item> data, String extra) {
+                extras.add(data.size() + extra);
+            }
+        };
+        assertTrue(callback.receive("{\"error\":0,\"data\":{\"total\":2,\"results\":"
+                + "[{\"id\":1},{\"id\":2}]}}"));
+        assertTrue(callback.receive("{\"data\":{\"results\":[{\"id\":1}],\"total\":1},"
+                + "\"error\":0}"));
+        assertTrue(callback.receive("{\"error\":0,\"data\":[{\"id\":1}]}"));
+        assertEquals("[2{\"total\":2}, 1{\"total\":1}, 1]", extras.toString());
+    }
+
+    @Test
+    public void sidCallbackSkipsCursor() {
+        List<String> extras = new ArrayList<>();
+        ClientSidArrayCallback<Item> callback = new ClientSidArrayCallback<Item>(ERRORS, null) {
+            @Override
+            protected void post(Runnable action) {
+                action.run();
+            }
+
+            @Override
+            public void onSuccess(String sid, List<Item> data, Extra extra) {
+                extras.add(sid + data.size() + extra);
+            }
+        };
+        assertTrue(callback.receive("{\"error\":0,\"data\":{\"sid\":\"s2\",\"results\":"
+                + "[{\"id\":1}],\"more\":true}}"));
+        assertEquals("[s21{\"more\":true}]", extras.toString());
+    }
+
+}
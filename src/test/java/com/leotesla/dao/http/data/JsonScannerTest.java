@@ -0,0 +1,67 @@
+package com.leotesla.dao.http.data;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 结构扫描：字符串转义、字符串内的括号、嵌套与不完整结构
+ *
+ * @version 1.0
+ */
+public class JsonScannerTest {
+
+    private static String value(String text, String name) {
+        int[] span = JsonScanner.findField(text, JsonScanner.skipSpace(text, 0), name);
+        return null == span ? null : text.substring(span[0], span[1]);
+    }
+
+    @Test
+    public void skipStringHandlesEscapedQuotes() {
+        String text = "\"a\\\"b\\\\\",1";
+        assertEquals(text.indexOf(','), JsonScanner.skipString(text, 0));
+    }
+
+    @Test
+    public void skipValueIgnoresBracketsInStrings() {
+        String text = "{\"a\":\"}]\",\"b\":[\"[\",\"\\\"]\"]},";
+        assertEquals(text.length() - 1, JsonScanner.skipValue(text, 0));
+    }
+
+    @Test
+    public void skipValueHandlesNestedArrays() {
+        String text = "[[1,[2,3]],[],{\"x\":[[]]}] ";
+        assertEquals(text.length() - 1, JsonScanner.skipValue(text, 0));
+        assertEquals(2, JsonScanner.skipValue("[]", 0));
+    }
+
+    @Test
+    public void skipValueReadsLiterals() {
+        assertEquals(2, JsonScanner.skipValue("12,", 0));
+        assertEquals(4, JsonScanner.skipValue("null}", 0));
+        assertEquals(4, JsonScanner.skipValue("-1e3 ", 0));
+    }
+
+    @Test
+    public void skipValueRejectsIncompleteStructure() {
+        assertEquals(-1, JsonScanner.skipValue("[1,{\"a\":2}", 0));
+        assertEquals(-1, JsonScanner.skipValue("{\"a\":\"]}", 0));
+        assertEquals(-1, JsonScanner.skipValue("", 0));
+    }
+
+    @Test
+    public void findFieldAtTopLevelOnly() {
+        String text = " {\"data\":{\"error\":5},\"msg\":\"\\\"error\\\":3\",\"error\" : 0 }";
+        assertEquals("0", value(text, "error"));
+        assertEquals("{\"error\":5}", value(text, "data"));
+        assertNull(value(text, "missing"));
+    }
+
+    @Test
+    public void findFieldStopsOnMalformedObject() {
+        assertNull(value("{\"a\" 1,\"error\":0}", "error"));
+        assertNull(value("[\"error\",0]", "error"));
+        assertNull(value("{\"a\":[1,2,\"error\":0}", "error"));
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.leotesla.dao.http.data;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Serializable;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 结果集定位、切分与分段解码
+ *
+ * @version 1.0
+ */
+public class ParallelDecoderTest {
+
+    public static class Item implements Serializable {
+        public int id;
+        public String name;
+    }
+
+    private static String items(int count) {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < count; i++) {
+            builder.append(0 == i ? "" : ",").append("{\"id\":").append(i)
+                    .append(",\"name\":\"n,[").append(i).append("]\\\"}\",\"tags\":[[],[")
+                    .append(i).append("]]}");
+        }
+        return builder.append(']').toString();
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[3];
+        int n;
+        while (-1 != (n = reader.read(buffer, 0, buffer.length))) {
+            builder.append(buffer, 0, n);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void splitKeepsElementsWhole() {
+        String text = items(40);
+        for (int count = 1; count <= 8; count++) {
+            List<int[]> slices = ParallelDecoder.split(text, 0, text.length(), count);
+            assertTrue(slices.size() <= count);
+            // 各段首尾相接，拼回原数组
+            StringBuilder joined = new StringBuilder("[");
+            for (int i = 0; i < slices.size(); i++) {
+                int[] slice = slices.get(i);
+                String part = text.substring(slice[0], slice[1]);
+                assertTrue(part, part.startsWith("{") && part.endsWith("}"));
+                joined.append(0 == i ? "" : ",").append(part);
+            }
+            assertEquals(text, joined.append(']').toString());
+        }
+    }
+
+    @Test
+    public void splitIsRoughlyBalanced() {
+        String text = items(400);
+        List<int[]> slices = ParallelDecoder.split(text, 0, text.length(), 4);
+        assertEquals(4, slices.size());
+        int step = text.length() / 4;
+        for (int[] slice : slices) {
+            int length = slice[1] - slice[0];
+            assertTrue("slice " + length + " step " + step, Math.abs(length - step) < step / 10);
+        }
+    }
+
+    @Test
+    public void splitEmptyArray() {
+        assertTrue(ParallelDecoder.split("[]", 0, 2, 4).isEmpty());
+        assertTrue(ParallelDecoder.split("[ \n ]", 0, 5, 4).isEmpty());
+        assertEquals(1, ParallelDecoder.split("[1]", 0, 3, 4).size());
+    }
+
+    @Test
+    public void locateNestedResults() {
+        String results = items(3);
+        String text = "{\"error\":0,\"data\":{\"sid\":\"s\",\"results\":" + results + "}}";
+        int[] span = ParallelDecoder.locate(text, ParallelDecoder.LAYOUT_NESTED);
+        assertNotNull(span);
+        assertEquals(results, text.substring(span[0], span[1]));
+        assertNull(ParallelDecoder.locate(text, ParallelDecoder.LAYOUT_NONE));
+    }
+
+    @Test
+    public void locateBareArrayOnlyWhenAllowed() {
+        String text = "{\"error\":\"0\",\"data\":[1,2]}";
+        assertNull(ParallelDecoder.locate(text, ParallelDecoder.LAYOUT_NESTED));
+        int[] span = ParallelDecoder.locate(text, ParallelDecoder.LAYOUT_NESTED_OR_BARE);
+        assertNotNull(span);
+        assertEquals("[1,2]", text.substring(span[0], span[1]));
+    }
+
+    @Test
+    public void locateChecksErrorAfterData() {
+        String data = "\"data\":{\"results\":[1,2]}";
+        assertNotNull(ParallelDecoder.locate("{" + data + ",\"error\":0}",
+                ParallelDecoder.LAYOUT_NESTED));
+        assertNull(ParallelDecoder.locate("{" + data + ",\"error\":3}",
+                ParallelDecoder.LAYOUT_NESTED));
+        // 缺少error或信封不完整时不解码
+        assertNull(ParallelDecoder.locate("{" + data + "}", ParallelDecoder.LAYOUT_NESTED));
+        assertNull(ParallelDecoder.locate("{\"error\":0," + data, ParallelDecoder.LAYOUT_NESTED));
+    }
+
+    @Test
+    public void decodeMatchesOrder() {
+        String results = items(100);
+        String text = "{\"error\":0,\"data\":{\"results\":" + results + "}}";
+        int[] span = ParallelDecoder.locate(text, ParallelDecoder.LAYOUT_NESTED);
+        List<Item> list = ParallelDecoder.decode(text, span[0], span[1], Item.class);
+        assertEquals(100, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertEquals(i, list.get(i).id);
+            assertEquals("n,[" + i + "]\"}", list.get(i).name);
+        }
+        assertTrue(ParallelDecoder.<Item>decode("[]", 0, 2, Item.class).isEmpty());
+    }
+
+    @Test
+    public void rangeReaderReadsWithoutCopy() throws IOException {
+        String text = "0123456789";
+        assertEquals("[234]", read(RangeReader.wrap(text, 2, 5, "[", "]")));
+        assertEquals("01[]789", read(RangeReader.replace(text, 2, 7, "[]")));
+        assertEquals("[]", read(RangeReader.wrap(text, 3, 3, "[", "]")));
+        assertEquals("", read(RangeReader.replace("", 0, 0, "")));
+        Reader reader = RangeReader.replace(text, 0, 10, "x");
+        assertEquals("x", read(reader));
+        assertEquals(-1, reader.read(new char[1], 0, 1));
+    }
+
+}
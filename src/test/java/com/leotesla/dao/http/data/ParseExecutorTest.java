@@ -0,0 +1,153 @@
+package com.leotesla.dao.http.data;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解析线程池：优先级顺序、排队上限、就地解析退回
+ *
+ * @version 1.0
+ */
+public class ParseExecutorTest {
+
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    // 阻塞唯一的解析线程，使后续任务排队
+    private final CountDownLatch blocking = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    // 本用例创建的线程池，结束时关闭
+    private final List<ParseExecutor> executors = new ArrayList<>();
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        for (ParseExecutor executor : executors) {
+            executor.shutdown();
+        }
+    }
+
+    private ParseExecutor create(int threads, int capacity) {
+        ParseExecutor executor = new ParseExecutor(threads, capacity);
+        executors.add(executor);
+        return executor;
+    }
+
+    private void block(ParseExecutor executor) throws InterruptedException {
+        executor.execute(Priority.INTERACTIVE, () -> {
+            blocking.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(blocking.await(5, TimeUnit.SECONDS));
+    }
+
+    private Runnable record(String name, CountDownLatch done) {
+        return () -> {
+            ran.add(name);
+            done.countDown();
+        };
+    }
+
+    @Test
+    public void runsByPriorityThenSubmitOrder() throws InterruptedException {
+        ParseExecutor executor = create(1, 16);
+        block(executor);
+        CountDownLatch done = new CountDownLatch(5);
+        assertTrue(executor.offer(Priority.NORMAL, record("n1", done)));
+        assertTrue(executor.offer(Priority.PREFETCH, record("p1", done)));
+        assertTrue(executor.offer(Priority.BACKGROUND, record("b1", done)));
+        assertTrue(executor.offer(Priority.INTERACTIVE, record("i1", done)));
+        assertTrue(executor.offer(Priority.NORMAL, record("n2", done)));
+        assertEquals(5, executor.getQueueDepth());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("i1", "n1", "n2", "b1", "p1"), ran);
+        assertEquals(0, executor.getQueueDepth());
+        assertEquals(5, executor.getPeakDepth());
+    }
+
+    @Test
+    public void fullQueueFallsBackInline() throws InterruptedException {
+        ParseExecutor executor = create(1, 2);
+        block(executor);
+        CountDownLatch done = new CountDownLatch(2);
+        assertTrue(executor.offer(Priority.NORMAL, record("n1", done)));
+        assertTrue(executor.offer(Priority.NORMAL, record("n2", done)));
+        // 排队已满，由调用方就地解析
+        assertFalse(executor.offer(Priority.INTERACTIVE, record("i1", done)));
+        assertEquals(1, executor.getInlineCount());
+        assertEquals(3, executor.getSubmittedCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("n1", "n2"), ran);
+        // 排队回落后重新接受
+        CountDownLatch more = new CountDownLatch(1);
+        assertTrue(executor.offer(Priority.NORMAL, record("n3", more)));
+        assertTrue(more.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void zeroThreadsRunsInline() {
+        ParseExecutor executor = create(0, 16);
+        assertFalse(executor.isEnabled());
+        assertFalse(executor.offer(Priority.NORMAL, () -> ran.add("n1")));
+        assertEquals(1, executor.getInlineCount());
+        assertEquals(0, executor.getSubmittedCount());
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void configureDisablesAndEnables() throws InterruptedException {
+        ParseExecutor executor = create(2, 4);
+        executor.configure(0, 4);
+        assertFalse(executor.isEnabled());
+        assertFalse(executor.offer(Priority.NORMAL, () -> ran.add("n1")));
+
+        executor.configure(1, 4);
+        assertTrue(executor.isEnabled());
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.offer(Priority.NORMAL, record("n2", done)));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("n2"), ran);
+    }
+
+    @Test
+    public void executeIgnoresCapacity() throws InterruptedException {
+        ParseExecutor executor = create(1, 0);
+        assertFalse(executor.offer(Priority.NORMAL, () -> ran.add("n1")));
+        // 恢复推迟的解析时不能退回调用线程
+        CountDownLatch done = new CountDownLatch(1);
+        executor.execute(Priority.NORMAL, record("n2", done));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("n2"), ran);
+        assertEquals(1, executor.getSubmittedCount());
+    }
+
+    @Test
+    public void parseThreadIsRecognized() throws InterruptedException {
+        ParseExecutor executor = create(1, 4);
+        assertFalse(ParseExecutor.isParseThread());
+        boolean[] inside = new boolean[1];
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(executor.offer(Priority.NORMAL, () -> {
+            inside[0] = ParseExecutor.isParseThread();
+            done.countDown();
+        }));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(inside[0]);
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.leotesla.dao.http.data;
+
+import com.leotesla.httpclient.ClientError;
+import com.leotesla.httpclient.ClientErrorHandler;
+import com.leotesla.httpclient.internal.HttpResponse;
+
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解析结果快照：原本不外泄、接收者各得独立副本、不可变数据直接共享
+ *
+ * @version 1.0
+ */
+public class ParsedTest {
+
+    public static class Item implements Serializable {
+        public int id;
+        public List<String> tags;
+    }
+
+    private static final ClientErrorHandler ERRORS = new ClientErrorHandler() {
+        @Override
+        public ClientError onHttpFailed(HttpResponse response) {
+            return null;
+        }
+
+        @Override
+        public boolean onDispatchError(ClientError error) {
+            return false;
+        }
+
+        @Override
+        public void onPostError(ClientError error) {
+        }
+    };
+
+    private static Item item(int id) {
+        Item item = new Item();
+        item.id = id;
+        item.tags = new ArrayList<>(Arrays.asList("a", "b"));
+        return item;
+    }
+
+    @Test
+    public void snapshotIsDetachedFromSource() {
+        Item source = item(1);
+        Parsed parsed = new Parsed(ClientCallback.class, Item.class, source, false, null, null);
+        source.id = 9;
+        source.tags.add("c");
+        Item copy = (Item) parsed.copy();
+        assertEquals(1, copy.id);
+        assertEquals(Arrays.asList("a", "b"), copy.tags);
+        assertNotSame(copy, parsed.copy());
+    }
+
+    @Test
+    public void listElementsAreCopied() {
+        List<Item> source = new ArrayList<>(Arrays.asList(item(1), item(2)));
+        Parsed parsed = new Parsed(ClientArrayCallback.class, Item.class, source, true, null,
+                Extra.EMPTY);
+        @SuppressWarnings("unchecked")
+        List<Item> first = (List<Item>) parsed.copy();
+        first.get(0).id = 7;
+        first.remove(1);
+        @SuppressWarnings("unchecked")
+        List<Item> second = (List<Item>) parsed.copy();
+        assertEquals(2, second.size());
+        assertEquals(1, second.get(0).id);
+        assertNotSame(source.get(0), second.get(0));
+    }
+
+    @Test
+    public void immutableDataIsShared() {
+        Parsed single = new Parsed(ClientCallback.class, String.class, "text", false, null, null);
+        assertSame(single.take(), single.take());
+        List<String> source = Arrays.asList("a", "b");
+        Parsed list = new Parsed(ClientArrayCallback.class, String.class, source, true, null,
+                Extra.EMPTY);
+        Object first = list.take();
+        assertEquals(source, first);
+        assertNotSame(first, list.take());
+    }
+
+    @Test
+    public void takeUsesPreparedSpare() throws InterruptedException {
+        Parsed parsed = new Parsed(ClientCallback.class, Item.class, item(1), false, null, null);
+        // 未备好副本时调用线程不复制
+        assertNull(parsed.take());
+        assertFalse(parsed.isEmpty());
+        parsed.prepare();
+        Object spare = null;
+        for (int i = 0; i < 100 && null == spare; i++) {
+            Thread.sleep(10);
+            spare = parsed.take();
+        }
+        assertEquals(1, ((Item) spare).id);
+        // 取走后在后台补充下一份
+        Object next = null;
+        for (int i = 0; i < 100 && null == next; i++) {
+            Thread.sleep(10);
+            next = parsed.take();
+        }
+        assertNotNull(next);
+        assertNotSame(spare, next);
+    }
+
+    @Test
+    public void followerReceivesOwnCopy() throws InterruptedException {
+        List<List<Item>> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        class Recorder extends ClientArrayCallback<Item> {
+            private Recorder() {
+                super(ERRORS, null);
+            }
+
+            @Override
+            protected void post(Runnable action) {
+                action.run();
+            }
+
+            @Override
+            public void onSuccess(List<Item> data, Extra extra) {
+                received.add(data);
+                done.countDown();
+            }
+        }
+        Recorder leader = new Recorder();
+        assertTrue(leader.receive("{\"error\":0,\"data\":{\"results\":[{\"id\":1}],\"n\":1}}"));
+        Parsed parsed = leader.snapshot();
+        Recorder follower = new Recorder();
+        assertTrue(follower.reuse(parsed));
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        assertNotSame(received.get(0), received.get(1));
+        assertNotSame(received.get(0).get(0), received.get(1).get(0));
+        assertEquals(1, received.get(1).get(0).id);
+        assertEquals("{\"n\":1}", parsed.extra.toString());
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.leotesla.dao.http.data;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 请求调度器：分道上限、优先级提升、移除与槽位释放、取消与超时收回
+ *
+ * @version 1.0
+ */
+public class RequestSchedulerTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        started.clear();
+    }
+
+    private ClientVoidCallback submit(RequestScheduler scheduler, String name, Priority priority) {
+        ClientVoidCallback callback = new ClientVoidCallback(null, null) {
+            @Override
+            public void onSuccess() {
+            }
+        };
+        callback.prioritize(priority);
+        scheduler.submit(callback, () -> started.add(name));
+        return callback;
+    }
+
+    @Test
+    public void laneLimits() {
+        RequestScheduler scheduler = new RequestScheduler(4);
+        submit(scheduler, "p1", Priority.PREFETCH);
+        submit(scheduler, "p2", Priority.PREFETCH);
+        // 预取道只占一个槽位
+        assertEquals(Arrays.asList("p1"), started);
+        assertEquals(1, scheduler.getQueueDepth(Priority.PREFETCH));
+
+        submit(scheduler, "b1", Priority.BACKGROUND);
+        submit(scheduler, "b2", Priority.BACKGROUND);
+        // 后台道上限为槽位数一半
+        assertEquals(Arrays.asList("p1", "b1"), started);
+        assertEquals(1, scheduler.getQueueDepth(Priority.BACKGROUND));
+
+        submit(scheduler, "n1", Priority.NORMAL);
+        submit(scheduler, "n2", Priority.NORMAL);
+        submit(scheduler, "n3", Priority.NORMAL);
+        assertEquals(Arrays.asList("p1", "b1", "n1", "n2"), started);
+        assertEquals(4, scheduler.getRunningCount());
+        assertEquals(1, scheduler.getQueueDepth(Priority.NORMAL));
+    }
+
+    @Test
+    public void interactiveIgnoresSlots() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        submit(scheduler, "n1", Priority.NORMAL);
+        submit(scheduler, "n2", Priority.NORMAL);
+        submit(scheduler, "i1", Priority.INTERACTIVE);
+        submit(scheduler, "i2", Priority.INTERACTIVE);
+        assertEquals(Arrays.asList("n1", "i1", "i2"), started);
+        assertEquals(3, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void queuedHigherLaneBlocksLowerLanes() {
+        RequestScheduler scheduler = new RequestScheduler(2);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        ClientVoidCallback n2 = submit(scheduler, "n2", Priority.NORMAL);
+        ClientVoidCallback n3 = submit(scheduler, "n3", Priority.NORMAL);
+        submit(scheduler, "p1", Priority.PREFETCH);
+        // 普通道有排队时预取道不发起
+        assertEquals(Arrays.asList("n1", "n2"), started);
+        scheduler.release(n1);
+        assertEquals(Arrays.asList("n1", "n2", "n3"), started);
+        // 预取道上限按总占用计算
+        scheduler.release(n2);
+        assertEquals(Arrays.asList("n1", "n2", "n3"), started);
+        scheduler.release(n3);
+        assertEquals(Arrays.asList("n1", "n2", "n3", "p1"), started);
+    }
+
+    @Test
+    public void releaseStartsHighestLaneFirst() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        ClientVoidCallback p1 = submit(scheduler, "p1", Priority.PREFETCH);
+        ClientVoidCallback b1 = submit(scheduler, "b1", Priority.BACKGROUND);
+        ClientVoidCallback n2 = submit(scheduler, "n2", Priority.NORMAL);
+        scheduler.release(n1);
+        assertEquals(Arrays.asList("n1", "n2"), started);
+        scheduler.release(n2);
+        assertEquals(Arrays.asList("n1", "n2", "b1"), started);
+        scheduler.release(b1);
+        assertEquals(Arrays.asList("n1", "n2", "b1", "p1"), started);
+        scheduler.release(p1);
+        assertEquals(0, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void releaseIsCountedOnce() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        submit(scheduler, "n2", Priority.NORMAL);
+        submit(scheduler, "n3", Priority.NORMAL);
+        scheduler.release(n1);
+        // 重复释放不多放行请求
+        scheduler.release(n1);
+        assertEquals(Arrays.asList("n1", "n2"), started);
+        assertEquals(1, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void cancelReleasesStartedRequest() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        submit(scheduler, "n2", Priority.NORMAL);
+        n1.cancel();
+        // 已发起的请求取消后不再占用槽位
+        assertEquals(Arrays.asList("n1", "n2"), started);
+        scheduler.release(n1);
+        assertEquals(1, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void expiredSlotIsReclaimed() throws InterruptedException {
+        RequestScheduler scheduler = new RequestScheduler(1, 20);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        submit(scheduler, "n2", Priority.NORMAL);
+        Thread.sleep(40);
+        // 引擎未回调的请求超时后，下一次调度收回其槽位
+        submit(scheduler, "n3", Priority.NORMAL);
+        assertEquals(Arrays.asList("n1", "n2"), started);
+        scheduler.release(n1);
+        assertEquals(Arrays.asList("n1", "n2"), started);
+        assertEquals(1, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void promoteMovesQueuedRequest() {
+        RequestScheduler scheduler = new RequestScheduler(2);
+        submit(scheduler, "p1", Priority.PREFETCH);
+        ClientVoidCallback queued = submit(scheduler, "p2", Priority.PREFETCH);
+        assertEquals(1, scheduler.getQueueDepth(Priority.PREFETCH));
+
+        queued.raise(Priority.INTERACTIVE);
+        assertEquals(Priority.INTERACTIVE, queued.getPriority());
+        assertEquals(0, scheduler.getQueueDepth(Priority.PREFETCH));
+        assertEquals(Arrays.asList("p1", "p2"), started);
+
+        // 不降低优先级
+        queued.raise(Priority.BACKGROUND);
+        assertEquals(Priority.INTERACTIVE, queued.getPriority());
+    }
+
+    @Test
+    public void promoteToLaneWithoutSlotStaysQueued() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        ClientVoidCallback queued = submit(scheduler, "p1", Priority.PREFETCH);
+        queued.raise(Priority.NORMAL);
+        assertEquals(0, scheduler.getQueueDepth(Priority.PREFETCH));
+        assertEquals(1, scheduler.getQueueDepth(Priority.NORMAL));
+        assertEquals(Arrays.asList("n1"), started);
+        scheduler.release(n1);
+        assertEquals(Arrays.asList("n1", "p1"), started);
+    }
+
+    @Test
+    public void removeQueuedRequest() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        ClientVoidCallback running = submit(scheduler, "n1", Priority.NORMAL);
+        ClientVoidCallback queued = submit(scheduler, "n2", Priority.NORMAL);
+        assertFalse(scheduler.remove(running));
+        assertTrue(scheduler.remove(queued));
+        assertFalse(scheduler.remove(queued));
+        assertEquals(0, scheduler.getQueueDepth(Priority.NORMAL));
+        scheduler.release(running);
+        assertEquals(Arrays.asList("n1"), started);
+        assertEquals(0, scheduler.getRunningCount());
+    }
+
+    @Test
+    public void cancelRemovesQueuedRequest() {
+        RequestScheduler scheduler = new RequestScheduler(1);
+        ClientVoidCallback n1 = submit(scheduler, "n1", Priority.NORMAL);
+        ClientVoidCallback queued = submit(scheduler, "n2", Priority.NORMAL);
+        queued.cancel();
+        assertTrue(queued.isCanceled());
+        assertEquals(0, scheduler.getQueueDepth(Priority.NORMAL));
+        scheduler.release(n1);
+        assertEquals(Arrays.asList("n1"), started);
+    }
+
+}